@@ -52,11 +52,20 @@ public class SecurityConfig {
 
                         .requestMatchers("/api/guides/**").permitAll()
 
+                        .requestMatchers("/api/payments/export", "/api/reservations/export",
+                                "/api/payments/reconciliations/**")
+                        .hasAnyRole("GENERAL_MANAGER", "CUSTOMER_SERVICE_EXECUTIVE", "ADMIN")
+
+                        .requestMatchers("/api/reservations/auto-assign-guides")
+                        .hasAnyRole("CUSTOMER_SERVICE_EXECUTIVE", "GENERAL_MANAGER")
+
                         .requestMatchers("/api/reservations/**")
                         .hasAnyRole("CUSTOMER_SERVICE_EXECUTIVE", "TOURIST", "GUIDE", "GENERAL_MANAGER")
 
                         .requestMatchers("/api/availability/**").permitAll()
 
+                        .requestMatchers("/api/reports/rollup/**").hasAnyRole("GENERAL_MANAGER", "ADMIN")
+
                         .requestMatchers("/api/reports/**").permitAll()
 
                         .anyRequest().authenticated())
@@ -84,7 +93,8 @@ public class SecurityConfig {
         var cfg = new org.springframework.web.cors.CorsConfiguration();
         cfg.setAllowedOrigins(java.util.List.of("https://ceylonatravels.vercel.app", "http://localhost:3000"));
         cfg.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        cfg.setAllowedHeaders(java.util.List.of("Authorization", "Content-Type"));
+        cfg.setAllowedHeaders(java.util.List.of("Authorization", "Content-Type", "Idempotency-Key", "Last-Event-ID"));
+        cfg.setExposedHeaders(java.util.List.of("Idempotent-Replayed"));
         var source = new org.springframework.web.cors.UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", cfg);
         return source;
@@ -2,10 +2,15 @@ package com.backend.controller.Analyse;
 
 import com.backend.dto.Analyse.ReportDTO;
 import com.backend.service.Analyse.ReportService;
+import com.backend.service.Analyse.SalesRollup;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +21,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private SalesRollup salesRollup;
+
     @GetMapping("/daily")
     public ResponseEntity<List<ReportDTO>> getDailyReport(
             @RequestParam(defaultValue = "30") int days) {
@@ -75,6 +83,21 @@ public class ReportController {
         }
     }
 
+    // Recompute the sales rollup for days in [from, to), e.g. after fixing payments by hand
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSalesRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int cells = salesRollup.rebuild(from, to);
+            return ResponseEntity.ok(Map.of("from", from, "to", to, "cells", cells));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> healthCheck() {
         return ResponseEntity.ok(Map.of(
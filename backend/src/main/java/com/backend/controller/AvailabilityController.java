@@ -1,13 +1,22 @@
 package com.backend.controller;
 
-import java.util.Map;
+import java.time.LocalDate;
 import java.util.List;
+import com.backend.dto.availability.CalendarAvailabilityDTO;
+import com.backend.dto.availability.PackageAvailabilityDTO;
+import com.backend.service.inventory.CapacityCalendar;
+import com.backend.service.inventory.PackageAvailabilityView;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/availability")
@@ -15,25 +24,29 @@ import org.springframework.web.bind.annotation.RestController;
 public class AvailabilityController {
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private PackageAvailabilityView availabilityView;
+
+    @Autowired
+    private CapacityCalendar capacityCalendar;
 
     @GetMapping
-    public List<Map<String, Object>> getAvailability() {
-        String sql = """
-            SELECT p.packageID, p.title,
-                   COUNT(r.reservationID) AS currentBookings,
-                   (10 - COUNT(r.reservationID)) AS available,
-                   CASE 
-                       WHEN COUNT(r.reservationID) >= 10 THEN 'Full'
-                       ELSE 'Available'
-                   END AS status
-            FROM packages p
-            LEFT JOIN reservation r 
-                ON p.packageID = r.packageID 
-                AND r.status IN ('Confirmed', 'Active')
-            GROUP BY p.packageID, p.title
-        """;
-        return jdbcTemplate.queryForList(sql);
+    public List<PackageAvailabilityDTO> getAvailability() {
+        return availabilityView.getAvailability();
     }
-}
 
+    // Per-day availability of a package between two dates (inclusive)
+    @GetMapping("/{packageId}/calendar")
+    public CalendarAvailabilityDTO getCalendar(
+            @PathVariable Long packageId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "1") int seats) {
+        try {
+            return capacityCalendar.availability(packageId, from, to, seats);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (EntityNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+    }
+}
@@ -5,9 +5,11 @@ import java.util.Map;
 import com.backend.entity.Guide;
 import com.backend.service.GuideService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,6 +24,18 @@ public class GuideController {
                 return guideService.getAllGuides();
         }
 
+        // Active guides with no assigned reservation overlapping the date range
+        @GetMapping("/available")
+        public ResponseEntity<?> getFreeGuides(
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+                try {
+                        return ResponseEntity.ok(guideService.getFreeGuides(from, to));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+                }
+        }
+
         @PostMapping
         public ResponseEntity<?> addGuide(@RequestBody Guide guide) {
                 try {
@@ -2,10 +2,12 @@ package com.backend.controller;
 
 import com.backend.dto.dashboard.generalManager.DashboardResponseDTO;
 import com.backend.service.ManagerService;
+import com.backend.service.dashboard.DashboardStream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/manager/dashboard")
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 public class ManagerController {
 
     private final ManagerService service;
+    private final DashboardStream dashboardStream;
 
     @GetMapping
     public ResponseEntity<DashboardResponseDTO> getDashboard(
@@ -25,4 +28,10 @@ public class ManagerController {
         return ResponseEntity.ok(
                 service.getDashboard(authentication, months, recentLimit, activeDays, packageMonths, packageLimit));
     }
+
+    // Live deltas (booking, payment, refund, totals) as Server-Sent Events; reconnects resume via Last-Event-ID
+    @GetMapping(value = "/stream", produces = "text/event-stream")
+    public SseEmitter streamDashboard(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return dashboardStream.subscribe(lastEventId);
+    }
 }
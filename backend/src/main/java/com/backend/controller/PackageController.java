@@ -3,6 +3,9 @@ package com.backend.controller;
 import com.backend.entity.Packages;
 import com.backend.entity.enums.PackageStatus;
 import com.backend.repository.PackageRepository;
+import com.backend.service.inventory.CapacityCalendar;
+import com.backend.service.inventory.PackageAvailabilityView;
+import com.backend.service.inventory.SeatInventory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +22,15 @@ public class PackageController {
     @Autowired
     private PackageRepository packageRepository;
 
+    @Autowired
+    private CapacityCalendar capacityCalendar;
+
+    @Autowired
+    private PackageAvailabilityView availabilityView;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
     // READ all packages
     @GetMapping
     public ResponseEntity<List<Packages>> getAllPackages() {
@@ -90,10 +102,18 @@ public class PackageController {
             if (pkg.getStatus() == null) {
                 pkg.setStatus(PackageStatus.ACTIVE);
             }
+            if (pkg.getCapacity() == null) {
+                pkg.setCapacity(pkg.getAvailable());
+            } else if (pkg.getAvailable() == null) {
+                pkg.setAvailable(pkg.getCapacity());
+            }
 
             System.out.println("Attempting to save package...");
             Packages savedPackage = packageRepository.save(pkg);
             System.out.println("Successfully saved package with ID: " + savedPackage.getPackageID());
+            capacityCalendar.updateCapacity(savedPackage.getPackageID(), savedPackage.getDailyCapacity());
+            seatInventory.register(savedPackage);
+            availabilityView.upsertPackage(savedPackage);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPackage);
 
@@ -147,11 +167,38 @@ public class PackageController {
             existingPackage.setImage(pkg.getImage());
             existingPackage.setStatus(
                     pkg.getStatus() != null ? pkg.getStatus() : PackageStatus.ACTIVE);
+            if (pkg.getDailyCapacity() != null) {
+                existingPackage.setDailyCapacity(pkg.getDailyCapacity());
+            }
+            Integer previousCapacity = existingPackage.getCapacity();
+            boolean resized = false;
+            if (pkg.getCapacity() != null && !pkg.getCapacity().equals(previousCapacity)) {
+                try {
+                    // moves the remaining seats by the same amount; refused below the seats already held
+                    seatInventory.resize(id, pkg.getCapacity());
+                } catch (IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage());
+                    return ResponseEntity.badRequest().build();
+                }
+                existingPackage.setCapacity(pkg.getCapacity());
+                resized = true;
+            }
 
             // DON'T update packageID or createdAt - they should remain unchanged
             System.out.println("Attempting to update package...");
-            Packages updatedPackage = packageRepository.save(existingPackage);
+            Packages updatedPackage;
+            try {
+                updatedPackage = packageRepository.save(existingPackage);
+            } catch (RuntimeException ex) {
+                if (resized && previousCapacity != null) {
+                    seatInventory.resize(id, previousCapacity);
+                }
+                throw ex;
+            }
             System.out.println("Successfully updated package: " + updatedPackage);
+            capacityCalendar.updateCapacity(updatedPackage.getPackageID(), updatedPackage.getDailyCapacity());
+            seatInventory.refresh(updatedPackage);
+            availabilityView.upsertPackage(updatedPackage);
 
             return ResponseEntity.ok(updatedPackage);
 
@@ -176,6 +223,10 @@ public class PackageController {
             }
 
             packageRepository.deleteById(id);
+            // committed by now, so the in-memory entries can go
+            seatInventory.remove(id);
+            capacityCalendar.remove(id);
+            availabilityView.removePackage(id);
             System.out.println("Successfully deleted package with ID: " + id);
 
             return ResponseEntity.ok().build();
@@ -1,13 +1,26 @@
 package com.backend.controller;
 
+import com.backend.designpatterns.PaymentStrategyRegistry;
 import com.backend.dto.Analyse.PaymentDTO;
+import com.backend.dto.Analyse.PaymentMethodStatusDTO;
+import com.backend.dto.Analyse.PaymentStatusDTO;
+import com.backend.entity.enums.PaymentStatus;
 import com.backend.service.PaymentService;
+import com.backend.service.export.ExportFormat;
+import com.backend.service.export.ExportService;
+import com.backend.service.idempotency.IdempotencyService;
+import com.backend.service.payment.PaymentStatusStreams;
+import com.backend.service.payment.VelocityLimitException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -23,25 +36,76 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentStatusStreams paymentStatusStreams;
+
+    @Autowired
+    private PaymentStrategyRegistry paymentStrategies;
+
+    @Autowired
+    private ExportService exportService;
+
     // Create a new payment
     @PostMapping
-    public ResponseEntity<PaymentDTO> createPayment(@Valid @RequestBody PaymentDTO paymentDTO) {
+    public ResponseEntity<?> createPayment(@Valid @RequestBody PaymentDTO paymentDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/payments", idempotencyKey, paymentDTO, () -> {
+            try {
+                PaymentDTO createdPayment = paymentService.createPayment(paymentDTO);
+                return new ResponseEntity<>(createdPayment, HttpStatus.CREATED);
+            } catch (Exception e) {
+                return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    // Process payment; answers 202 with the PENDING payment, follow the outcome via /{id}/status
+    @PostMapping("/process")
+    public ResponseEntity<?> processPayment(@Valid @RequestBody PaymentDTO paymentDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/payments/process", idempotencyKey, paymentDTO, () -> {
+            try {
+                PaymentDTO processedPayment = paymentService.processPayment(paymentDTO);
+                return ResponseEntity.accepted()
+                        .header("Location", "/api/payments/" + processedPayment.getPaymentId() + "/status")
+                        .body(processedPayment);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (VelocityLimitException e) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+            } catch (Exception e) {
+                return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    // Circuit and bulkhead state of each payment method
+    @GetMapping("/methods")
+    public List<PaymentMethodStatusDTO> getPaymentMethods() {
+        return paymentStrategies.getStatus();
+    }
+
+    // Long-poll a payment's status; returns as soon as it leaves PENDING or after waitMs
+    @GetMapping("/{id}/status")
+    public DeferredResult<PaymentStatusDTO> getPaymentStatus(@PathVariable Long id,
+            @RequestParam(defaultValue = "25000") long waitMs) {
         try {
-            PaymentDTO createdPayment = paymentService.createPayment(paymentDTO);
-            return new ResponseEntity<>(createdPayment, HttpStatus.CREATED);
-        } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return paymentStatusStreams.await(id, Math.max(1, Math.min(waitMs, 60000)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
     }
 
-    // Process payment
-    @PostMapping("/process")
-    public ResponseEntity<PaymentDTO> processPayment(@Valid @RequestBody PaymentDTO paymentDTO) {
+    // Stream a payment's status as Server-Sent Events until it leaves PENDING
+    @GetMapping(value = "/{id}/status/stream", produces = "text/event-stream")
+    public SseEmitter streamPaymentStatus(@PathVariable Long id) {
         try {
-            PaymentDTO processedPayment = paymentService.processPayment(paymentDTO);
-            return new ResponseEntity<>(processedPayment, HttpStatus.CREATED);
-        } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return paymentStatusStreams.stream(id);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
     }
 
@@ -88,6 +152,24 @@ public class PaymentController {
         return new ResponseEntity<>(payments, HttpStatus.OK);
     }
 
+    // Stream every matching payment as NDJSON (default) or CSV, e.g. a full year for finance
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long packageId,
+            @RequestParam(required = false) PaymentStatus status) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            return ExportService.download("payments", exportFormat,
+                    exportService.payments(exportFormat, startDate, endDate, userId, packageId, status));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     // Get payments in date range
     @GetMapping("/date-range")
     public ResponseEntity<List<PaymentDTO>> getPaymentsByDateRange(
@@ -126,10 +208,14 @@ public class PaymentController {
         return new ResponseEntity<>(totalCount, HttpStatus.OK);
     }
 
+    // Latest payments, newest first, served from memory
     @GetMapping("/recent")
-    public ResponseEntity<List<PaymentDTO>> getRecentPayments() {
-        List<PaymentDTO> payments = paymentService.getRecentPayments();
-        return new ResponseEntity<>(payments, HttpStatus.OK);
+    public ResponseEntity<List<PaymentDTO>> getRecentPayments(@RequestParam(defaultValue = "10") int limit) {
+        try {
+            return new ResponseEntity<>(paymentService.getRecentPayments(limit), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PostMapping("/cleanup-expired")
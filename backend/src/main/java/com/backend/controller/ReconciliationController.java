@@ -0,0 +1,93 @@
+package com.backend.controller;
+
+import com.backend.entity.ReconciliationIssue;
+import com.backend.entity.ReconciliationRun;
+import com.backend.entity.enums.ReconciliationIssueType;
+import com.backend.repository.ReconciliationIssueRepository;
+import com.backend.repository.ReconciliationRunRepository;
+import com.backend.service.reconciliation.SettlementReconciler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payments/reconciliations")
+@CrossOrigin(origins = "*")
+public class ReconciliationController {
+
+    @Autowired
+    private SettlementReconciler settlementReconciler;
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Autowired
+    private ReconciliationIssueRepository issueRepository;
+
+    // Upload a gateway settlement file (paymentID,amount,status per line) and reconcile it
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<ReconciliationRun> reconcile(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate settlementDate) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Settlement file is empty");
+        }
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : "settlement";
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("settlement-", ".csv");
+            file.transferTo(temp);
+            LocalDate date = settlementDate != null ? settlementDate : SettlementReconciler.dateFromName(name);
+            return new ResponseEntity<>(settlementReconciler.reconcile(temp, name, date), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not store settlement file");
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // the OS cleans the temp dir
+                }
+            }
+        }
+    }
+
+    // Latest 50 runs
+    @GetMapping
+    public List<ReconciliationRun> getRuns() {
+        return runRepository.findTop50ByOrderByStartedAtDesc();
+    }
+
+    @GetMapping("/{runId}")
+    public ReconciliationRun getRun(@PathVariable Long runId) {
+        return runRepository.findById(runId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reconciliation run not found"));
+    }
+
+    // Issues of a run, optionally of one type, a page at a time
+    @GetMapping("/{runId}/issues")
+    public List<ReconciliationIssue> getIssues(@PathVariable Long runId,
+            @RequestParam(required = false) ReconciliationIssueType type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page must be >= 0 and size between 1 and 1000");
+        }
+        PageRequest pageRequest = PageRequest.of(page, size);
+        return type != null
+                ? issueRepository.findByRunIDAndTypeOrderByIssueID(runId, type, pageRequest)
+                : issueRepository.findByRunIDOrderByIssueID(runId, pageRequest);
+    }
+}
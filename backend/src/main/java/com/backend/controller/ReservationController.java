@@ -3,33 +3,169 @@ package com.backend.controller;
 import com.backend.entity.Reservation;
 import com.backend.entity.enums.ReservationStatus;
 import com.backend.service.ReservationService;
+import com.backend.dto.reservaton.GroupReservationCreateDTO;
 import com.backend.dto.reservaton.ReservationCreateDTO;
+import com.backend.dto.reservaton.GuideAutoAssignResultDTO;
+import com.backend.dto.reservaton.ReservationDTO;
+import com.backend.dto.reservaton.ReservationPageDTO;
+import com.backend.dto.reservaton.WaitlistEntryDTO;
+import com.backend.service.reservation.ReservationQueryService;
+import com.backend.service.export.ExportFormat;
+import com.backend.service.export.ExportService;
+import com.backend.service.idempotency.IdempotencyService;
+import com.backend.service.inventory.SoldOutException;
+import com.backend.service.waitlist.WaitlistService;
+import com.backend.service.scheduling.GuideAutoAssigner;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reservations")
 public class ReservationController {
 
+    // roles allowed to place someone above tier 0 on a waitlist
+    private static final Set<String> WAITLIST_TIER_ROLES = Set.of("ROLE_CUSTOMER_SERVICE_EXECUTIVE",
+            "ROLE_GENERAL_MANAGER");
+
     private final ReservationService reservationService;
+    private final GuideAutoAssigner guideAutoAssigner;
+    private final IdempotencyService idempotencyService;
+    private final WaitlistService waitlistService;
+    private final ReservationQueryService reservationQueryService;
+    private final ExportService exportService;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService, GuideAutoAssigner guideAutoAssigner,
+            IdempotencyService idempotencyService, WaitlistService waitlistService,
+            ReservationQueryService reservationQueryService, ExportService exportService) {
         this.reservationService = reservationService;
+        this.guideAutoAssigner = guideAutoAssigner;
+        this.idempotencyService = idempotencyService;
+        this.waitlistService = waitlistService;
+        this.reservationQueryService = reservationQueryService;
+        this.exportService = exportService;
     }
 
-    // Create a new reservation
+    // Create a new reservation; with joinWaitlist=true a sold-out package puts the tourist on its waitlist (202)
     @PostMapping
-    public ResponseEntity<Reservation> create(@RequestBody ReservationCreateDTO dto) {
+    public ResponseEntity<?> create(@RequestBody ReservationCreateDTO dto,
+            @RequestParam(defaultValue = "false") boolean joinWaitlist,
+            @RequestParam(defaultValue = "0") int tier,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        checkTier(tier, authentication);
+        // the query parameters change the outcome, so they are part of what a reused key must match
+        Object request = List.of(dto, joinWaitlist, tier);
+        return idempotencyService.execute("POST /api/reservations", idempotencyKey, request, () -> {
+            try {
+                Reservation created = reservationService.createReservation(dto);
+                return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            } catch (SoldOutException ex) {
+                if (!joinWaitlist) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+                }
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(enqueue(dto, tier));
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+            } catch (IllegalStateException ex) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
+            }
+        });
+    }
+
+    // Book several travellers at once; all seats are granted or none
+    @PostMapping("/group")
+    public ResponseEntity<?> createGroup(@RequestBody GroupReservationCreateDTO dto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/reservations/group", idempotencyKey, dto, () -> {
+            try {
+                List<Reservation> created = reservationService.createGroupReservation(dto);
+                return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+            } catch (IllegalStateException ex) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
+            }
+        });
+    }
+
+    // Hold a seat while the tourist pays
+    @PostMapping("/hold")
+    public ResponseEntity<Reservation> hold(@RequestBody ReservationCreateDTO dto,
+            @RequestParam(required = false) Integer ttlMinutes) {
         try {
-            Reservation created = reservationService.createReservation(dto);
-            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            Reservation held = reservationService.createHold(dto, ttlMinutes);
+            return ResponseEntity.status(HttpStatus.CREATED).body(held);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+    }
+
+    // Join the waitlist of a sold-out package
+    @PostMapping("/waitlist")
+    public ResponseEntity<?> joinWaitlist(@RequestBody ReservationCreateDTO dto,
+            @RequestParam(defaultValue = "0") int tier,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        checkTier(tier, authentication);
+        return idempotencyService.execute("POST /api/reservations/waitlist", idempotencyKey, List.of(dto, tier),
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(enqueue(dto, tier)));
+    }
+
+    // Waitlist of a package in promotion order
+    @GetMapping("/waitlist/package/{packageId}")
+    public List<WaitlistEntryDTO> getWaitlist(@PathVariable Long packageId) {
+        return waitlistService.getWaitlist(packageId);
+    }
+
+    // Leave a waitlist
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public WaitlistEntryDTO leaveWaitlist(@PathVariable Long waitlistId) {
+        try {
+            return waitlistService.leave(waitlistId);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+    }
+
+    // A tourist could otherwise jump the queue; only staff may set a tier
+    private static void checkTier(int tier, Authentication authentication) {
+        if (tier == 0) {
+            return;
+        }
+        boolean staff = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> WAITLIST_TIER_ROLES.contains(a.getAuthority()));
+        if (!staff) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only staff can set a waitlist tier");
+        }
+    }
+
+    private WaitlistEntryDTO enqueue(ReservationCreateDTO dto, int tier) {
+        try {
+            return waitlistService.join(dto, tier);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
         }
@@ -37,15 +173,65 @@ public class ReservationController {
 
     // Get active reservations
     @GetMapping
-    public List<Reservation> getAllActive() {
-        return reservationService.getAllActiveReservations();
+    public List<ReservationDTO> getAllActive() {
+        return reservationQueryService.findAll();
+    }
+
+    // Page through reservations newest first; pass nextCursor back as cursor for the next page
+    @GetMapping("/page")
+    public ReservationPageDTO<ReservationDTO> getPage(
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Long packageId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return reservationQueryService.findPage(null, status, packageId, from, to, cursor, limit);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    // Stream every matching reservation as NDJSON (default) or CSV
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Long packageId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            return ExportService.download("reservations", exportFormat,
+                    exportService.reservations(exportFormat, from, to, userId, packageId, status));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    // Page through a user's booking history newest first
+    @GetMapping("/history/{userId}/page")
+    public ReservationPageDTO<ReservationDTO> getHistoryPage(@PathVariable Long userId,
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Long packageId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return reservationQueryService.findPage(userId, status, packageId, from, to, cursor, limit);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
     }
 
     // Get reservation by ID (NEW)
     @GetMapping("/{id}")
-    public ResponseEntity<Reservation> getReservationById(@PathVariable Long id) {
+    public ResponseEntity<ReservationDTO> getReservationById(@PathVariable Long id) {
         try {
-            Reservation reservation = reservationService.findById(id);
+            ReservationDTO reservation = reservationQueryService.findById(id);
             return ResponseEntity.ok(reservation);
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
@@ -54,8 +240,8 @@ public class ReservationController {
 
     // Get booking history by user
     @GetMapping("/history/{userId}")
-    public List<Reservation> getHistory(@PathVariable Long userId) {
-        return reservationService.getHistoryByUser(userId);
+    public List<ReservationDTO> getHistory(@PathVariable Long userId) {
+        return reservationQueryService.findHistory(userId);
     }
 
     // Confirm reservation
@@ -64,6 +250,8 @@ public class ReservationController {
         try {
             Long guideId = (body != null) ? body.get("guideId") : null;
             return reservationService.confirmReservation(id, guideId);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
         }
@@ -99,11 +287,25 @@ public class ReservationController {
             Long guideId = body.get("guideId");
             Reservation updated = reservationService.assignGuide(id, guideId);
             return ResponseEntity.ok(updated);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
     }
 
+    // Assign guides to all unassigned confirmed reservations starting in the window
+    @PostMapping("/auto-assign-guides")
+    public ResponseEntity<GuideAutoAssignResultDTO> autoAssignGuides(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(guideAutoAssigner.assign(from, to));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
     // Helper class for updating status
     public static class StatusUpdateRequest {
         private String status;
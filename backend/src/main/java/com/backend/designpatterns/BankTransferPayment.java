@@ -1,21 +1,28 @@
 package com.backend.designpatterns;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+
 import java.math.BigDecimal;
 
+@Slf4j
 @Component
-public class BankTransferPayment implements com.backend.service.PaymentService.PaymentStrategy {
+public class BankTransferPayment implements PaymentStrategy {
+
+    private final PaymentGateway gateway;
+
+    public BankTransferPayment(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
 
     @Override
-    public boolean processPayment(BigDecimal amount) {
-        System.out.println("Processing bank transfer of LKR " + amount);
-        // Simulate bank transfer processing with 95% success rate
-        boolean success = Math.random() < 0.95;
-        return success;
+    public boolean processPayment(BigDecimal amount) throws Exception {
+        log.debug("Processing bank transfer of LKR {}", amount);
+        return gateway.charge(getStrategyName(), amount);
     }
 
     @Override
     public String getStrategyName() {
         return "BANK_TRANSFER";
     }
-}
\ No newline at end of file
+}
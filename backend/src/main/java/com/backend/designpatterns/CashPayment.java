@@ -1,15 +1,18 @@
 package com.backend.designpatterns;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+
 import java.math.BigDecimal;
 
+@Slf4j
 @Component
-public class CashPayment implements com.backend.service.PaymentService.PaymentStrategy {
+public class CashPayment implements PaymentStrategy {
 
     @Override
     public boolean processPayment(BigDecimal amount) {
-        System.out.println("Processing cash payment of LKR " + amount);
-        // Cash payment always succeeds
+        log.debug("Processing cash payment of LKR {}", amount);
+        // Cash is collected in person, there is no gateway to decline it
         return true;
     }
 
@@ -17,4 +20,4 @@ public class CashPayment implements com.backend.service.PaymentService.PaymentSt
     public String getStrategyName() {
         return "CASH";
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,28 @@
 package com.backend.designpatterns;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+
 import java.math.BigDecimal;
 
+@Slf4j
 @Component
-public class CreditCardPayment implements com.backend.service.PaymentService.PaymentStrategy {
+public class CreditCardPayment implements PaymentStrategy {
+
+    private final PaymentGateway gateway;
+
+    public CreditCardPayment(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
 
     @Override
-    public boolean processPayment(BigDecimal amount) {
-        System.out.println("Processing credit card payment of LKR " + amount);
-        // Simulate credit card processing with 85% success rate
-        boolean success = Math.random() < 0.85;
-        return success;
+    public boolean processPayment(BigDecimal amount) throws Exception {
+        log.debug("Processing credit card payment of LKR {}", amount);
+        return gateway.charge(getStrategyName(), amount);
     }
 
     @Override
     public String getStrategyName() {
         return "CREDIT_CARD";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.backend.designpatterns;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Slf4j
+@Component
+public class DigitalWalletPayment implements PaymentStrategy {
+
+    private final PaymentGateway gateway;
+
+    public DigitalWalletPayment(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    @Override
+    public boolean processPayment(BigDecimal amount) throws Exception {
+        log.debug("Processing digital wallet payment of LKR {}", amount);
+        return gateway.charge(getStrategyName(), amount);
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "DIGITAL_WALLET";
+    }
+}
@@ -1,20 +1,28 @@
 package com.backend.designpatterns;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+@Slf4j
 @Component
-public abstract class PayPalPayment implements com.backend.service.PaymentService.PaymentStrategy {
+public class PayPalPayment implements PaymentStrategy {
+
+    private final PaymentGateway gateway;
+
+    public PayPalPayment(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
+
     @Override
-    public boolean processPayment(BigDecimal amount) {
-        System.out.println("Processing PayPal payment of LKR " + amount);
-        // Actual PayPal logic would go here
-        return Math.random() < 0.90; // 90% success rate for example
+    public boolean processPayment(BigDecimal amount) throws Exception {
+        log.debug("Processing PayPal payment of LKR {}", amount);
+        return gateway.charge(getStrategyName(), amount);
     }
 
     @Override
     public String getStrategyName() {
         return "PAYPAL";
     }
-}
\ No newline at end of file
+}
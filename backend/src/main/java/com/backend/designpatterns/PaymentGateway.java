@@ -0,0 +1,9 @@
+package com.backend.designpatterns;
+
+import java.math.BigDecimal;
+
+// External payment processor behind the card, bank transfer, PayPal and wallet strategies
+public interface PaymentGateway {
+
+    boolean charge(String method, BigDecimal amount) throws Exception;
+}
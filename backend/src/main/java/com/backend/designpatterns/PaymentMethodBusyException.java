@@ -0,0 +1,9 @@
+package com.backend.designpatterns;
+
+// Thrown when a method's bulkhead stays full; the gateway was never called, so the payment can be retried
+public class PaymentMethodBusyException extends IllegalStateException {
+
+    public PaymentMethodBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.backend.designpatterns;
+
+import java.math.BigDecimal;
+
+/**
+ * One way of taking a payment, registered in {@link PaymentStrategyRegistry}
+ * under {@link #getStrategyName()}. Returning false means the payment was
+ * declined; throwing means the gateway could not be reached or misbehaved,
+ * which counts against the method's circuit breaker.
+ */
+public interface PaymentStrategy {
+
+    boolean processPayment(BigDecimal amount) throws Exception;
+
+    String getStrategyName();
+}
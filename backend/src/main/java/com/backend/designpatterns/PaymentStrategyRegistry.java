@@ -0,0 +1,250 @@
+package com.backend.designpatterns;
+
+import com.backend.dto.Analyse.PaymentMethodStatusDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * All {@link PaymentStrategy} beans keyed by {@code Payment.method}. Every
+ * method is isolated behind its own guard:
+ * <ul>
+ * <li>a bulkhead capping concurrent gateway calls, so a slow method can only
+ * tie up its own permits;</li>
+ * <li>a call timeout;</li>
+ * <li>a circuit breaker that opens after consecutive errors or timeouts
+ * (declines do not count) and lets one trial call through after a cool-down;</li>
+ * <li>a {@code payments.gateway.calls} timer tagged by method and outcome.</li>
+ * </ul>
+ * Limits come from {@code app.payments.methods.<METHOD>.*}, falling back to
+ * the {@code app.payments.*} defaults.
+ */
+@Slf4j
+@Component
+public class PaymentStrategyRegistry {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final Map<String, GuardedStrategy> strategies = new TreeMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry;
+
+    public PaymentStrategyRegistry(List<PaymentStrategy> beans, Environment env, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (PaymentStrategy strategy : beans) {
+            String name = normalize(strategy.getStrategyName());
+            String prefix = "app.payments.methods." + name + ".";
+            GuardedStrategy guarded = new GuardedStrategy(strategy, name,
+                    setting(env, prefix, "max-concurrent", 50),
+                    setting(env, prefix, "bulkhead-wait-ms", 100),
+                    setting(env, prefix, "timeout-ms", 5000),
+                    setting(env, prefix, "failure-threshold", 5),
+                    setting(env, prefix, "open-ms", 30000));
+            if (strategies.putIfAbsent(name, guarded) != null) {
+                throw new IllegalStateException("Duplicate payment strategy: " + name);
+            }
+            Gauge.builder("payments.gateway.circuit.open", guarded, g -> g.breaker.state() == CircuitState.CLOSED ? 0 : 1)
+                    .tag("method", name).register(meterRegistry);
+            Gauge.builder("payments.gateway.in_flight", guarded, g -> g.maxConcurrent - g.bulkhead.availablePermits())
+                    .tag("method", name).register(meterRegistry);
+        }
+        log.info("Payment strategies registered: {}", strategies.keySet());
+    }
+
+    // "Credit Card", "credit-card" and "CREDIT_CARD" all name the same method
+    public static String normalize(String method) {
+        if (method == null) {
+            return null;
+        }
+        return method.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+    }
+
+    public boolean supports(String method) {
+        return method != null && strategies.containsKey(normalize(method));
+    }
+
+    // true if approved, false if declined; throws when the gateway errored, timed out or was not tried.
+    // PaymentMethodBusyException means it was not tried and may be retried; TimeoutException means the outcome is unknown.
+    public boolean execute(String method, BigDecimal amount) throws Exception {
+        GuardedStrategy guarded = method != null ? strategies.get(normalize(method)) : null;
+        if (guarded == null) {
+            throw new IllegalArgumentException("Unsupported payment method: " + method);
+        }
+        return guarded.call(amount);
+    }
+
+    public List<PaymentMethodStatusDTO> getStatus() {
+        List<PaymentMethodStatusDTO> status = new ArrayList<>();
+        strategies.values().forEach(g -> status.add(new PaymentMethodStatusDTO(g.name, g.breaker.state().name(),
+                g.maxConcurrent - g.bulkhead.availablePermits(), g.maxConcurrent, g.timeoutMillis)));
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static int setting(Environment env, String prefix, String key, int fallback) {
+        Integer shared = env.getProperty("app.payments." + key, Integer.class, fallback);
+        return env.getProperty(prefix + key, Integer.class, shared);
+    }
+
+    private final class GuardedStrategy {
+        private final PaymentStrategy strategy;
+        private final String name;
+        private final int maxConcurrent;
+        private final long bulkheadWaitMillis;
+        private final long timeoutMillis;
+        private final Semaphore bulkhead;
+        private final CircuitBreaker breaker;
+
+        private GuardedStrategy(PaymentStrategy strategy, String name, int maxConcurrent, long bulkheadWaitMillis,
+                long timeoutMillis, int failureThreshold, long openMillis) {
+            this.strategy = strategy;
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.bulkheadWaitMillis = bulkheadWaitMillis;
+            this.timeoutMillis = timeoutMillis;
+            this.bulkhead = new Semaphore(maxConcurrent);
+            this.breaker = new CircuitBreaker(name, failureThreshold, openMillis);
+        }
+
+        private boolean call(BigDecimal amount) throws Exception {
+            if (!breaker.allowRequest()) {
+                record("circuit_open", 0);
+                throw new IllegalStateException("Payment method " + name + " is temporarily unavailable");
+            }
+            if (!bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                breaker.onRejected();
+                record("bulkhead_full", 0);
+                throw new PaymentMethodBusyException("Payment method " + name + " is at capacity");
+            }
+
+            long start = System.nanoTime();
+            Future<Boolean> future;
+            try {
+                // the permit is held until the gateway call really ends, even past a timeout
+                future = executor.submit(() -> {
+                    try {
+                        return strategy.processPayment(amount);
+                    } finally {
+                        bulkhead.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                bulkhead.release();
+                breaker.onRejected();
+                throw e;
+            }
+
+            try {
+                boolean approved = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                breaker.onSuccess();
+                record(approved ? "approved" : "declined", System.nanoTime() - start);
+                return approved;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                breaker.onFailure();
+                record("timeout", System.nanoTime() - start);
+                throw new TimeoutException("Payment method " + name + " timed out after " + timeoutMillis + " ms");
+            } catch (ExecutionException e) {
+                breaker.onFailure();
+                record("error", System.nanoTime() - start);
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                breaker.onRejected();
+                throw e;
+            }
+        }
+
+        private void record(String outcome, long nanos) {
+            Timer.builder("payments.gateway.calls")
+                    .tag("method", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class CircuitBreaker {
+        private final String name;
+        private final int failureThreshold;
+        private final long openMillis;
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private CircuitBreaker(String name, int failureThreshold, long openMillis) {
+            this.name = name;
+            this.failureThreshold = failureThreshold;
+            this.openMillis = openMillis;
+        }
+
+        private synchronized boolean allowRequest() {
+            if (state == CircuitState.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = CircuitState.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        private synchronized void onSuccess() {
+            if (state != CircuitState.CLOSED) {
+                log.info("Payment method {} circuit closed", name);
+            }
+            state = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        private synchronized void onFailure() {
+            trialInFlight = false;
+            if (state == CircuitState.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+                state = CircuitState.OPEN;
+                openedAt = System.currentTimeMillis();
+                consecutiveFailures = 0;
+                log.warn("Payment method {} circuit opened for {} ms", name, openMillis);
+            }
+        }
+
+        // the call never reached the gateway, so it says nothing about its health
+        private synchronized void onRejected() {
+            trialInFlight = false;
+        }
+
+        private synchronized CircuitState state() {
+            return state;
+        }
+    }
+}
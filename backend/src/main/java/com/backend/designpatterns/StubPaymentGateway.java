@@ -0,0 +1,35 @@
+package com.backend.designpatterns;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Local stand-in gateway with per-method approval rates, used unless a real gateway is configured
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final Map<String, Double> APPROVAL_RATES = Map.of(
+            "CREDIT_CARD", 0.85,
+            "BANK_TRANSFER", 0.95,
+            "PAYPAL", 0.90,
+            "DIGITAL_WALLET", 0.90);
+
+    private final long latencyMillis;
+
+    public StubPaymentGateway(@Value("${app.payments.stub.latency-ms:0}") long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public boolean charge(String method, BigDecimal amount) throws InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        return ThreadLocalRandom.current().nextDouble() < APPROVAL_RATES.getOrDefault(method, 0.90);
+    }
+}
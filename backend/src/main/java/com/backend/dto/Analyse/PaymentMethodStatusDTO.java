@@ -0,0 +1,9 @@
+package com.backend.dto.Analyse;
+
+public record PaymentMethodStatusDTO(
+        String method,
+        String circuitState,
+        int inFlight,
+        int maxConcurrent,
+        long timeoutMs) {
+}
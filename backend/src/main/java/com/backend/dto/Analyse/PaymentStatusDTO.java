@@ -0,0 +1,11 @@
+package com.backend.dto.Analyse;
+
+import com.backend.entity.enums.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+public record PaymentStatusDTO(
+        Long paymentId,
+        PaymentStatus status,
+        LocalDateTime updatedAt) {
+}
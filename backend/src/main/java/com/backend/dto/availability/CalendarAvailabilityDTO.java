@@ -0,0 +1,15 @@
+package com.backend.dto.availability;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record CalendarAvailabilityDTO(
+        Long packageId,
+        LocalDate from,
+        LocalDate to,
+        Integer dailyCapacity,
+        Integer minRemaining,
+        int seats,
+        boolean canBook,
+        List<DayAvailabilityDTO> days) {
+}
@@ -0,0 +1,9 @@
+package com.backend.dto.availability;
+
+import java.time.LocalDate;
+
+public record DayAvailabilityDTO(
+        LocalDate date,
+        int booked,
+        Integer remaining) {
+}
@@ -0,0 +1,11 @@
+package com.backend.dto.availability;
+
+public record PackageAvailabilityDTO(
+        Long packageID,
+        String title,
+        long currentBookings,
+        long pendingHolds,
+        Integer capacity,
+        Integer available,
+        String status) {
+}
@@ -0,0 +1,11 @@
+package com.backend.dto.dashboard.generalManager;
+
+import java.math.BigDecimal;
+
+// Running totals sent with every live dashboard event
+public record DashboardTotalsDTO(
+        BigDecimal totalEarningsGross,
+        BigDecimal refundedPayments,
+        long totalBookings,
+        long completedBookings) {
+}
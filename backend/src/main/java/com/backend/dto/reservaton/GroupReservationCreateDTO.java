@@ -0,0 +1,62 @@
+package com.backend.dto.reservaton;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class GroupReservationCreateDTO {
+    // one reservation per entry; a client may appear more than once when booking for travellers without accounts
+    private List<Long> userIds;
+    private Long packageId;
+    private Long guideId;
+    private Long paymentId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public Long getPackageId() {
+        return packageId;
+    }
+
+    public void setPackageId(Long packageId) {
+        this.packageId = packageId;
+    }
+
+    public Long getGuideId() {
+        return guideId;
+    }
+
+    public void setGuideId(Long guideId) {
+        this.guideId = guideId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
@@ -0,0 +1,6 @@
+package com.backend.dto.reservaton;
+
+public record GuideAssignmentDTO(
+        Long reservationId,
+        Long guideId) {
+}
@@ -0,0 +1,14 @@
+package com.backend.dto.reservaton;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record GuideAutoAssignResultDTO(
+        LocalDate from,
+        LocalDate to,
+        int unassignedReservations,
+        int activeGuides,
+        int assigned,
+        List<GuideAssignmentDTO> assignments,
+        List<Long> leftUnassigned) {
+}
@@ -14,6 +14,47 @@ public class ReservationDTO {
     private LocalDate startDate;
     private LocalDate endDate;
     private LocalDateTime createdAt;
+    private Long paymentID;
+    private LocalDateTime holdExpiresAt;
+    private String clientName;
+    private String clientEmail;
+    private String clientPhone;
+    private String packageTitle;
+    private String guideName;
+    private String guideEmail;
+
+    public ReservationDTO() {
+    }
+
+    // Used by the JPQL constructor expression in ReservationQueryService
+    public ReservationDTO(Long reservationID, Long userID, Long packageID, Long guideID, Long paymentID,
+            ReservationStatus status, LocalDate startDate, LocalDate endDate, LocalDateTime createdAt,
+            LocalDateTime holdExpiresAt, String clientFirstName, String clientLastName, String clientEmail,
+            String clientPhone, String packageTitle, String guideFirstName, String guideLastName, String guideEmail) {
+        this.reservationID = reservationID;
+        this.userID = userID;
+        this.packageID = packageID;
+        this.guideID = guideID;
+        this.paymentID = paymentID;
+        this.status = status;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.createdAt = createdAt;
+        this.holdExpiresAt = holdExpiresAt;
+        this.clientName = fullName(clientFirstName, clientLastName);
+        this.clientEmail = clientEmail;
+        this.clientPhone = clientPhone;
+        this.packageTitle = packageTitle;
+        this.guideName = guideID != null ? fullName(guideFirstName, guideLastName) : null;
+        this.guideEmail = guideEmail;
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        if (firstName == null) {
+            return lastName;
+        }
+        return lastName == null ? firstName : firstName + " " + lastName;
+    }
 
     public Long getReservationID() {
         return reservationID;
@@ -78,4 +119,68 @@ public class ReservationDTO {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getPaymentID() {
+        return paymentID;
+    }
+
+    public void setPaymentID(Long paymentID) {
+        this.paymentID = paymentID;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    public String getClientEmail() {
+        return clientEmail;
+    }
+
+    public void setClientEmail(String clientEmail) {
+        this.clientEmail = clientEmail;
+    }
+
+    public String getClientPhone() {
+        return clientPhone;
+    }
+
+    public void setClientPhone(String clientPhone) {
+        this.clientPhone = clientPhone;
+    }
+
+    public String getPackageTitle() {
+        return packageTitle;
+    }
+
+    public void setPackageTitle(String packageTitle) {
+        this.packageTitle = packageTitle;
+    }
+
+    public String getGuideName() {
+        return guideName;
+    }
+
+    public void setGuideName(String guideName) {
+        this.guideName = guideName;
+    }
+
+    public String getGuideEmail() {
+        return guideEmail;
+    }
+
+    public void setGuideEmail(String guideEmail) {
+        this.guideEmail = guideEmail;
+    }
 }
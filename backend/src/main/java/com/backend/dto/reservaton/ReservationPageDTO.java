@@ -0,0 +1,10 @@
+package com.backend.dto.reservaton;
+
+import java.util.List;
+
+public record ReservationPageDTO<T>(
+        List<T> items,
+        int limit,
+        boolean hasMore,
+        String nextCursor) {
+}
@@ -0,0 +1,17 @@
+package com.backend.dto.reservaton;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record WaitlistEntryDTO(
+        Long waitlistId,
+        Long userId,
+        Long packageId,
+        int tier,
+        Integer position,
+        LocalDate startDate,
+        LocalDate endDate,
+        String status,
+        Long reservationId,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,38 @@
+package com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "IdempotencyKey", indexes = {
+        @Index(name = "IX_IdempotencyKey_Expires", columnList = "expiresAt")
+})
+public class IdempotencyRecord {
+
+    // SHA-256 of scope + caller + client key
+    @Id
+    @Column(name = "idempotencyKey", length = 400)
+    private String idempotencyKey;
+
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "responseStatus")
+    private Integer responseStatus;
+
+    @Column(name = "responseBody", columnDefinition = "NVARCHAR(MAX)")
+    private String responseBody;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "expiresAt")
+    private LocalDateTime expiresAt;
+}
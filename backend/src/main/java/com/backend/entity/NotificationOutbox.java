@@ -0,0 +1,52 @@
+package com.backend.entity;
+
+import com.backend.entity.enums.NotificationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "NotificationOutbox", indexes = {
+        @Index(name = "IX_NotificationOutbox_Due", columnList = "status, nextAttemptAt")
+})
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outboxID")
+    private Long outboxID;
+
+    @Column(name = "userID")
+    private Long userID;
+
+    @Column(name = "reservationID")
+    private Long reservationID;
+
+    @Column(name = "type", length = 50)
+    private String type;
+
+    @Column(name = "message", length = 2000)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private NotificationStatus status = NotificationStatus.PENDING;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "nextAttemptAt")
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "lastError", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sentAt")
+    private LocalDateTime sentAt;
+}
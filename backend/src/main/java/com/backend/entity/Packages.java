@@ -47,9 +47,17 @@ public class Packages {
     @Column(name = "rating")
     private Double rating;
 
-    @Column(name = "available")
+    // remaining seats, maintained by SeatInventory write-behind
+    @Column(name = "available", updatable = false)
     private Integer available;
 
+    @Column(name = "capacity")
+    private Integer capacity;
+
+    // seats per day for overlapping trips, null means no per-day limit
+    @Column(name = "dailyCapacity")
+    private Integer dailyCapacity;
+
     @Column(name = "category")
     private String category;
 
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Table(name = "Payment", indexes = {
         @Index(name = "IX_Payment_User", columnList = "userID"),
-        @Index(name = "IX_Payment_Status", columnList = "status")
+        @Index(name = "IX_Payment_Status", columnList = "status"),
+        @Index(name = "IX_Payment_Date", columnList = "paymentDate DESC, paymentID DESC")
 })
 public class Payment {
 
@@ -0,0 +1,45 @@
+package com.backend.entity;
+
+import com.backend.entity.enums.ReconciliationIssueType;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "ReconciliationIssue", indexes = {
+        @Index(name = "IX_ReconciliationIssue_Run_Type", columnList = "runID, type, issueID"),
+        @Index(name = "IX_ReconciliationIssue_Payment", columnList = "paymentID")
+})
+public class ReconciliationIssue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "issueID")
+    private Long issueID;
+
+    @Column(name = "runID", nullable = false)
+    private Long runID;
+
+    @Column(name = "paymentID")
+    private Long paymentID;
+
+    // 1-based line of the settlement file; null for issues found in the database
+    @Column(name = "lineNumber")
+    private Long lineNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 30)
+    private ReconciliationIssueType type;
+
+    @Column(name = "expected")
+    private String expected;
+
+    @Column(name = "actual")
+    private String actual;
+
+    @Column(name = "createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,51 @@
+package com.backend.entity;
+
+import com.backend.entity.enums.ReconciliationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "ReconciliationRun", indexes = {
+        @Index(name = "IX_ReconciliationRun_Started", columnList = "startedAt DESC")
+})
+public class ReconciliationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "runID")
+    private Long runID;
+
+    @Column(name = "fileName")
+    private String fileName;
+
+    // payments made on this day are expected in the file; null skips that check
+    @Column(name = "settlementDate")
+    private LocalDate settlementDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private ReconciliationStatus status = ReconciliationStatus.RUNNING;
+
+    @Column(name = "lines")
+    private long lines;
+
+    @Column(name = "matched")
+    private long matched;
+
+    @Column(name = "issues")
+    private long issues;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "startedAt")
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "finishedAt")
+    private LocalDateTime finishedAt;
+}
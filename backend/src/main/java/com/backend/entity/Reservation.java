@@ -14,9 +14,10 @@ import java.time.LocalDateTime;
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Entity
 @Table(name = "Reservation", indexes = {
-        @Index(name = "IX_Reservation_User", columnList = "userID"),
-        @Index(name = "IX_Reservation_Package", columnList = "packageID"),
-        @Index(name = "IX_Reservation_Status", columnList = "status")
+        @Index(name = "IX_Reservation_Created", columnList = "createdAt DESC, reservationID DESC"),
+        @Index(name = "IX_Reservation_User_Created", columnList = "userID, createdAt DESC, reservationID DESC"),
+        @Index(name = "IX_Reservation_Package_Created", columnList = "packageID, createdAt DESC, reservationID DESC"),
+        @Index(name = "IX_Reservation_Status_Created", columnList = "status, createdAt DESC, reservationID DESC")
 })
 public class Reservation {
 
@@ -52,4 +53,11 @@ public class Reservation {
 
     @Column(name = "createdAt")
     private LocalDateTime createdAt;
+
+    @Column(name = "holdExpiresAt")
+    private LocalDateTime holdExpiresAt;
+
+    // reservationID of the lead traveller when booked as part of a group
+    @Column(name = "groupID")
+    private Long groupID;
 }
@@ -0,0 +1,43 @@
+package com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Successful sales per day, package and method; maintained by SalesRollup
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "SalesDailyRollup", indexes = {
+        @Index(name = "UX_SalesDailyRollup_Cell", columnList = "day, packageID, method", unique = true)
+})
+public class SalesDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollupID")
+    private Long rollupID;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    // 0 for payments without a package
+    @Column(name = "packageID", nullable = false)
+    private Long packageID;
+
+    // empty for payments without a method
+    @Column(name = "method", nullable = false, length = 50)
+    private String method;
+
+    @Column(name = "salesCount", nullable = false)
+    private long salesCount;
+
+    @Column(name = "salesAmount", nullable = false)
+    private BigDecimal salesAmount;
+
+    @Column(name = "updatedAt")
+    private LocalDateTime updatedAt;
+}
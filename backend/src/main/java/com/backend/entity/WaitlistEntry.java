@@ -0,0 +1,51 @@
+package com.backend.entity;
+
+import com.backend.entity.enums.WaitlistStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "Waitlist", indexes = {
+        @Index(name = "IX_Waitlist_Package_Status", columnList = "packageID, status")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "waitlistID")
+    private Long waitlistID;
+
+    @Column(name = "userID", nullable = false)
+    private Long userID;
+
+    @Column(name = "packageID", nullable = false)
+    private Long packageID;
+
+    // higher tiers are served first, FIFO within a tier
+    @Column(name = "tier")
+    private int tier;
+
+    @Column(name = "startDate")
+    private LocalDate startDate;
+
+    @Column(name = "endDate")
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    @Column(name = "reservationID")
+    private Long reservationID;
+
+    @Column(name = "createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "promotedAt")
+    private LocalDateTime promotedAt;
+}
@@ -0,0 +1,3 @@
+package com.backend.entity.enums;
+
+public enum NotificationStatus { PENDING, SENT, DEAD }
@@ -0,0 +1,14 @@
+package com.backend.entity.enums;
+
+public enum ReconciliationIssueType {
+    AMOUNT_MISMATCH,
+    STATUS_MISMATCH,
+    // in the settlement file but not in Payment
+    MISSING_PAYMENT,
+    // a successful payment of the settlement day that the gateway did not settle
+    MISSING_SETTLEMENT,
+    DUPLICATE,
+    MALFORMED_LINE,
+    RESERVATION_LINK,
+    REFUND_LINK
+}
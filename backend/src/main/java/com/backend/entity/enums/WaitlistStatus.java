@@ -0,0 +1,3 @@
+package com.backend.entity.enums;
+
+public enum WaitlistStatus { WAITING, PROMOTED, CANCELLED }
@@ -0,0 +1,27 @@
+package com.backend.event;
+
+import com.backend.entity.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// oldStatus is null for new payments, newStatus is null for deleted ones;
+// oldAmount is what the payment was worth before the change (null for new payments);
+// paymentDate and method describe the payment as it is now, or was before a delete
+public record PaymentStatusChangedEvent(
+        Long paymentId,
+        Long packageId,
+        BigDecimal amount,
+        PaymentStatus oldStatus,
+        PaymentStatus newStatus,
+        BigDecimal oldAmount,
+        LocalDateTime paymentDate,
+        String method) {
+
+    // a status change that leaves the amount as it was
+    public PaymentStatusChangedEvent(Long paymentId, Long packageId, BigDecimal amount,
+            PaymentStatus oldStatus, PaymentStatus newStatus, LocalDateTime paymentDate, String method) {
+        this(paymentId, packageId, amount, oldStatus, newStatus, oldStatus == null ? null : amount, paymentDate,
+                method);
+    }
+}
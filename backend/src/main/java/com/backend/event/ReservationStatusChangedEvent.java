@@ -0,0 +1,11 @@
+package com.backend.event;
+
+import com.backend.entity.enums.ReservationStatus;
+
+// oldStatus is null for new reservations, newStatus is null for deleted ones
+public record ReservationStatusChangedEvent(
+        Long reservationId,
+        Long packageId,
+        ReservationStatus oldStatus,
+        ReservationStatus newStatus) {
+}
@@ -0,0 +1,7 @@
+package com.backend.repository;
+
+import com.backend.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+}
@@ -0,0 +1,16 @@
+package com.backend.repository;
+
+import com.backend.entity.ReconciliationIssue;
+import com.backend.entity.enums.ReconciliationIssueType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationIssueRepository extends JpaRepository<ReconciliationIssue, Long> {
+
+    List<ReconciliationIssue> findByRunIDOrderByIssueID(Long runID, Pageable pageable);
+
+    List<ReconciliationIssue> findByRunIDAndTypeOrderByIssueID(Long runID, ReconciliationIssueType type,
+            Pageable pageable);
+}
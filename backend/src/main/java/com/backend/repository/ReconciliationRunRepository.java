@@ -0,0 +1,11 @@
+package com.backend.repository;
+
+import com.backend.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+
+    List<ReconciliationRun> findTop50ByOrderByStartedAtDesc();
+}
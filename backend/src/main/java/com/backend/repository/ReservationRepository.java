@@ -4,6 +4,7 @@ import com.backend.entity.Reservation;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
@@ -54,9 +55,16 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
             """, nativeQuery = true)
     long totalReservationsInPeriod(@Param("months") int months);
 
-    @Query("SELECT DISTINCT r FROM Reservation r ORDER BY r.createdAt DESC")
-    List<Reservation> findAllByOrderByCreatedAtDesc();
+    @Query("""
+            SELECT r.reservationID, r.startDate, r.endDate
+            FROM Reservation r
+            WHERE r.guide IS NULL AND r.status = 'CONFIRMED'
+              AND r.startDate BETWEEN :from AND :to
+            ORDER BY r.startDate, r.endDate
+            """)
+    List<Object[]> findUnassignedConfirmed(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
-    List<Reservation> findByClient_UserIDOrderByCreatedAtDesc(Long userId);
+    @Query("SELECT r.reservationID, r.holdExpiresAt FROM Reservation r WHERE r.status = 'PENDING' AND r.holdExpiresAt IS NOT NULL")
+    List<Object[]> findActiveHolds();
 
 }
@@ -0,0 +1,40 @@
+package com.backend.repository;
+
+import com.backend.entity.SalesDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Report queries over SalesDailyRollup; cells that dropped back to zero sales are left out
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, Long> {
+
+  @Query(value = """
+      SELECT
+          DATEFROMPARTS(YEAR(day), MONTH(day), 1) AS monthStart,
+          SUM(salesAmount) AS total
+      FROM SalesDailyRollup
+      WHERE day >= DATEADD(MONTH, -:months + 1,
+            DATEFROMPARTS(YEAR(SYSUTCDATETIME()), MONTH(SYSUTCDATETIME()), 1))
+      GROUP BY DATEFROMPARTS(YEAR(day), MONTH(day), 1)
+      HAVING SUM(salesCount) > 0
+      ORDER BY monthStart
+      """, nativeQuery = true)
+  List<Object[]> monthlySuccessfulSums(@Param("months") int months);
+
+  @Query(value = """
+      SELECT
+          day AS date,
+          COALESCE(SUM(salesAmount), 0) AS totalSales,
+          SUM(salesCount) AS count
+      FROM SalesDailyRollup
+      WHERE day >= :startDate AND day < :endDate
+      GROUP BY day
+      HAVING SUM(salesCount) > 0
+      ORDER BY day
+      """, nativeQuery = true)
+  List<Object[]> getDailySalesReport(@Param("startDate") LocalDate startDate,
+      @Param("endDate") LocalDate endDate);
+}
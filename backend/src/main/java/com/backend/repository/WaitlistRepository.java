@@ -0,0 +1,7 @@
+package com.backend.repository;
+
+import com.backend.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+}
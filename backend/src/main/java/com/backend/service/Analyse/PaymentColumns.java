@@ -0,0 +1,585 @@
+package com.backend.service.Analyse;
+
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every payment held in memory as columns of primitives (epoch day, amount
+ * in minor units, package id, status and method ordinals), so analytics can
+ * filter, group and sum without a round trip to SQL Server. Rows live in
+ * fixed-size segments that are scanned in parallel by fork/join tasks, one
+ * segment per leaf. Each segment keeps the range of days it holds, so a
+ * date filter skips most of history without reading it. A leaf sums into
+ * arrays indexed by key when the keys span a small range (status, method,
+ * package, or the few days a segment covers) and into an open-addressing
+ * table otherwise; results are merged on the way up.
+ *
+ * The store is loaded from Payment in the background on startup; until then
+ * {@link #isLoaded()} is false and callers should use the database. Committed
+ * changes arrive as {@link PaymentStatusChangedEvent}s, which carry the
+ * payment's full new state, so applying one is an upsert and events received
+ * while loading can simply be replayed afterwards. About 22 bytes are kept
+ * per payment.
+ */
+@Slf4j
+@Service
+public class PaymentColumns {
+
+    public enum GroupBy { DAY, PACKAGE, METHOD, STATUS }
+
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final byte DELETED = -1;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final int DENSE_LIMIT = 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReportCache reportCache;
+    private final ForkJoinPool pool;
+    private final int fetchSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // method ordinal 0 is "no method"
+    private final Map<String, Byte> methodOrdinals = new ConcurrentHashMap<>();
+    private final List<String> methodNames = new ArrayList<>(List.of(""));
+    private Table table = new Table();
+    private List<PaymentStatusChangedEvent> pending = new ArrayList<>();
+    private volatile boolean loaded;
+
+    public PaymentColumns(JdbcTemplate jdbcTemplate,
+            ReportCache reportCache,
+            @Value("${app.analytics.parallelism:0}") int parallelism,
+            @Value("${app.analytics.load-fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportCache = reportCache;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Count and amount of payments with {@code status} (any status if null)
+     * made on days in [from, to), grouped by {@code groupBy}; a null bound is
+     * open. Groups come back sorted by key.
+     */
+    public Groups sum(GroupBy groupBy, LocalDate from, LocalDate to, PaymentStatus status) {
+        if (!loaded) {
+            throw new IllegalStateException("Payment columns are still loading");
+        }
+        Scan scan = new Scan(groupBy,
+                from != null ? (int) from.toEpochDay() : NO_DAY + 1,
+                to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE,
+                status != null ? status.ordinal() : -1);
+        lock.readLock().lock();
+        try {
+            Table current = table;
+            int segments = (current.rows + SEGMENT_SIZE - 1) >>> SEGMENT_BITS;
+            Aggregate aggregate = segments == 0 ? new Aggregate(4) : pool.invoke(new SumTask(current, scan, 0, segments));
+            return aggregate.toGroups(groupBy == GroupBy.METHOD ? methodNames() : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // applied before ReportCache invalidates, so a reload after that sees this change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                if (pending != null) {
+                    pending.add(event);
+                }
+                return;
+            }
+            apply(table, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread.ofVirtual().name("payment-columns-load").start(() -> {
+            try {
+                load();
+            } catch (Exception e) {
+                log.error("Loading payment columns failed, analytics stay on the database: {}", e.getMessage(), e);
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        Table loading = new Table();
+        jdbcTemplate.execute("""
+                SELECT paymentID, paymentDate, amount, packageID, status, method
+                FROM Payment
+                ORDER BY paymentID
+                """, (PreparedStatement ps) -> {
+            ps.setFetchSize(fetchSize);
+            ps.setFetchDirection(ResultSet.FETCH_FORWARD);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp date = rs.getTimestamp(2);
+                    String status = rs.getString(5);
+                    loading.upsert(rs.getLong(1),
+                            date != null ? (int) date.toLocalDateTime().toLocalDate().toEpochDay() : NO_DAY,
+                            toMinor(rs.getBigDecimal(3)),
+                            packageOrdinal(rs.getLong(4)),
+                            status != null ? (byte) PaymentStatus.valueOf(status).ordinal() : DELETED,
+                            methodOrdinal(rs.getString(6)));
+                }
+            }
+            return null;
+        });
+
+        lock.writeLock().lock();
+        try {
+            // replays whatever committed while the snapshot was read; upserts make repeats harmless
+            for (PaymentStatusChangedEvent event : pending) {
+                apply(loading, event);
+            }
+            pending = null;
+            table = loading;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // results computed on the database fallback may differ from the store's
+        reportCache.invalidate(null, null);
+        log.info("Loaded {} payments into columns in {} ms", loading.rows, System.currentTimeMillis() - start);
+    }
+
+    private void apply(Table target, PaymentStatusChangedEvent event) {
+        if (event.paymentId() == null) {
+            return;
+        }
+        if (event.newStatus() == null) {
+            target.remove(event.paymentId());
+            return;
+        }
+        target.upsert(event.paymentId(),
+                event.paymentDate() != null ? (int) event.paymentDate().toLocalDate().toEpochDay() : NO_DAY,
+                toMinor(event.amount()),
+                packageOrdinal(event.packageId() != null ? event.packageId() : 0),
+                (byte) event.newStatus().ordinal(),
+                methodOrdinal(event.method()));
+    }
+
+    private static int packageOrdinal(long packageId) {
+        return packageId > 0 && packageId <= Integer.MAX_VALUE ? (int) packageId : 0;
+    }
+
+    private byte methodOrdinal(String method) {
+        if (method == null || method.isEmpty()) {
+            return 0;
+        }
+        Byte ordinal = methodOrdinals.get(method);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (methodNames) {
+            return methodOrdinals.computeIfAbsent(method, m -> {
+                if (methodNames.size() > Byte.MAX_VALUE) {
+                    log.warn("Too many payment methods for the column store, '{}' is grouped as none", m);
+                    return (byte) 0;
+                }
+                methodNames.add(m);
+                return (byte) (methodNames.size() - 1);
+            });
+        }
+    }
+
+    private String[] methodNames() {
+        synchronized (methodNames) {
+            return methodNames.toArray(new String[0]);
+        }
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Result of {@link #sum}: one group per distinct key, sorted by key. For
+     * DAY the key is the epoch day, for PACKAGE the package id (0 for none),
+     * for STATUS the PaymentStatus ordinal and for METHOD an ordinal that
+     * {@link #method(int)} turns back into the method name.
+     */
+    public static final class Groups {
+        private final long[] keys;
+        private final long[] counts;
+        private final long[] amounts;
+        private final String[] methods;
+
+        private Groups(long[] keys, long[] counts, long[] amounts, String[] methods) {
+            this.keys = keys;
+            this.counts = counts;
+            this.amounts = amounts;
+            this.methods = methods;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        public long key(int i) {
+            return keys[i];
+        }
+
+        public long count(int i) {
+            return counts[i];
+        }
+
+        public BigDecimal amount(int i) {
+            return BigDecimal.valueOf(amounts[i], 2);
+        }
+
+        public String method(int i) {
+            return methods != null ? methods[i] : null;
+        }
+    }
+
+    private record Scan(GroupBy groupBy, int fromDay, int toDay, int status) {
+    }
+
+    /**
+     * The columns themselves, plus a direct-addressed index from payment id
+     * to row (ids are IDENTITY values, so the index stays dense). A deleted
+     * payment keeps its row with a DELETED status.
+     */
+    private static final class Table {
+        private Segment[] segments = new Segment[16];
+        private int[] rowById = new int[1024];
+        private int rows;
+
+        private void upsert(long paymentId, int day, long amountMinor, int packageId, byte status, byte method) {
+            if (paymentId <= 0 || paymentId >= Integer.MAX_VALUE - 8) {
+                return;
+            }
+            int id = (int) paymentId;
+            if (id >= rowById.length) {
+                rowById = Arrays.copyOf(rowById, Math.max(id + 1, (int) Math.min(Integer.MAX_VALUE - 8, rowById.length * 3L / 2)));
+            }
+            // stored as row + 1, so 0 means absent
+            int row = rowById[id] - 1;
+            if (row < 0) {
+                row = rows;
+                int segment = row >>> SEGMENT_BITS;
+                if (segment == segments.length) {
+                    segments = Arrays.copyOf(segments, segments.length * 2);
+                }
+                if (segments[segment] == null) {
+                    segments[segment] = new Segment();
+                }
+                rowById[id] = row + 1;
+                rows++;
+            }
+            Segment s = segments[row >>> SEGMENT_BITS];
+            int i = row & (SEGMENT_SIZE - 1);
+            s.days[i] = day;
+            s.amounts[i] = amountMinor;
+            s.packages[i] = packageId;
+            s.statuses[i] = status;
+            s.methods[i] = method;
+            s.minDay = Math.min(s.minDay, day);
+            s.maxDay = Math.max(s.maxDay, day);
+            s.maxPackage = Math.max(s.maxPackage, packageId);
+        }
+
+        private void remove(long paymentId) {
+            if (paymentId <= 0 || paymentId >= rowById.length) {
+                return;
+            }
+            int row = rowById[(int) paymentId] - 1;
+            if (row >= 0) {
+                segments[row >>> SEGMENT_BITS].statuses[row & (SEGMENT_SIZE - 1)] = DELETED;
+                rowById[(int) paymentId] = 0;
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final int[] days = new int[SEGMENT_SIZE];
+        private final long[] amounts = new long[SEGMENT_SIZE];
+        private final int[] packages = new int[SEGMENT_SIZE];
+        private final byte[] statuses = new byte[SEGMENT_SIZE];
+        private final byte[] methods = new byte[SEGMENT_SIZE];
+        // zone map: bounds over every value ever written, so a segment can be skipped by day
+        private int minDay = Integer.MAX_VALUE;
+        private int maxDay = Integer.MIN_VALUE;
+        private int maxPackage;
+    }
+
+    private static final class SumTask extends RecursiveTask<Aggregate> {
+        private final Table table;
+        private final Scan scan;
+        private final int fromSegment;
+        private final int toSegment;
+
+        private SumTask(Table table, Scan scan, int fromSegment, int toSegment) {
+            this.table = table;
+            this.scan = scan;
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (toSegment - fromSegment > 1) {
+                int mid = (fromSegment + toSegment) >>> 1;
+                SumTask left = new SumTask(table, scan, fromSegment, mid);
+                left.fork();
+                Aggregate right = new SumTask(table, scan, mid, toSegment).compute();
+                return left.join().merge(right);
+            }
+            return scanSegment(fromSegment);
+        }
+
+        private Aggregate scanSegment(int segmentIndex) {
+            Segment s = table.segments[segmentIndex];
+            int length = Math.min(SEGMENT_SIZE, table.rows - (segmentIndex << SEGMENT_BITS));
+            int fromDay = Math.max(scan.fromDay(), s.minDay);
+            int toDay = Math.min(scan.toDay(), s.maxDay == Integer.MAX_VALUE ? Integer.MAX_VALUE : s.maxDay + 1);
+            if (fromDay >= toDay) {
+                // the segment's zone map says no row can match
+                return new Aggregate(4);
+            }
+
+            // keys in a small range are summed into plain arrays indexed by key
+            long span = switch (scan.groupBy()) {
+                case DAY -> (long) toDay - fromDay;
+                case PACKAGE -> s.maxPackage + 1L;
+                case METHOD, STATUS -> 128;
+            };
+            if (span <= DENSE_LIMIT) {
+                return scanDense(s, length, fromDay, toDay, (int) span);
+            }
+            return scanSparse(s, length, fromDay, toDay);
+        }
+
+        private Aggregate scanDense(Segment s, int length, int fromDay, int toDay, int span) {
+            long[] counts = new long[span];
+            long[] sums = new long[span];
+            int[] days = s.days;
+            long[] amounts = s.amounts;
+            byte[] statuses = s.statuses;
+            int status = scan.status();
+            switch (scan.groupBy()) {
+                case DAY -> {
+                    for (int i = 0; i < length; i++) {
+                        int day = days[i];
+                        byte st = statuses[i];
+                        if (day >= fromDay && day < toDay && st != DELETED && (status < 0 || st == status)) {
+                            counts[day - fromDay]++;
+                            sums[day - fromDay] += amounts[i];
+                        }
+                    }
+                }
+                case PACKAGE -> {
+                    int[] packages = s.packages;
+                    for (int i = 0; i < length; i++) {
+                        int day = days[i];
+                        byte st = statuses[i];
+                        if (day >= fromDay && day < toDay && st != DELETED && (status < 0 || st == status)) {
+                            counts[packages[i]]++;
+                            sums[packages[i]] += amounts[i];
+                        }
+                    }
+                }
+                case METHOD, STATUS -> {
+                    byte[] keys = scan.groupBy() == GroupBy.METHOD ? s.methods : statuses;
+                    for (int i = 0; i < length; i++) {
+                        int day = days[i];
+                        byte st = statuses[i];
+                        if (day >= fromDay && day < toDay && st != DELETED && (status < 0 || st == status)) {
+                            counts[keys[i]]++;
+                            sums[keys[i]] += amounts[i];
+                        }
+                    }
+                }
+            }
+            long base = scan.groupBy() == GroupBy.DAY ? fromDay : 0;
+            Aggregate aggregate = new Aggregate(16);
+            for (int k = 0; k < span; k++) {
+                if (counts[k] > 0) {
+                    aggregate.add(base + k, counts[k], sums[k]);
+                }
+            }
+            return aggregate;
+        }
+
+        // Wide key ranges: rows in id order mostly repeat the previous key, so runs are summed before probing
+        private Aggregate scanSparse(Segment s, int length, int fromDay, int toDay) {
+            int[] days = s.days;
+            long[] amounts = s.amounts;
+            byte[] statuses = s.statuses;
+            int status = scan.status();
+            GroupBy groupBy = scan.groupBy();
+
+            Aggregate aggregate = new Aggregate(64);
+            long runKey = Long.MIN_VALUE;
+            long runCount = 0;
+            long runAmount = 0;
+            for (int i = 0; i < length; i++) {
+                byte st = statuses[i];
+                int day = days[i];
+                if (st == DELETED || (status >= 0 && st != status) || day < fromDay || day >= toDay) {
+                    continue;
+                }
+                long key = switch (groupBy) {
+                    case DAY -> day;
+                    case PACKAGE -> s.packages[i];
+                    case METHOD -> s.methods[i];
+                    case STATUS -> st;
+                };
+                if (key != runKey) {
+                    if (runCount > 0) {
+                        aggregate.add(runKey, runCount, runAmount);
+                    }
+                    runKey = key;
+                    runCount = 0;
+                    runAmount = 0;
+                }
+                runCount++;
+                runAmount += amounts[i];
+            }
+            if (runCount > 0) {
+                aggregate.add(runKey, runCount, runAmount);
+            }
+            return aggregate;
+        }
+    }
+
+    /** Open-addressing table of key to (count, amount) with linear probing. */
+    private static final class Aggregate {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private long[] counts;
+        private long[] amounts;
+        private int size;
+
+        private Aggregate(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(4, capacity) * 2 - 1));
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            counts = new long[capacity];
+            amounts = new long[capacity];
+            size = 0;
+        }
+
+        private void add(long key, long count, long amount) {
+            int mask = keys.length - 1;
+            int i = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            counts[i] += count;
+            amounts[i] += amount;
+            if (size > keys.length * 3 / 4) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            long[] oldAmounts = amounts;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldCounts[i], oldAmounts[i]);
+                }
+            }
+        }
+
+        private Aggregate merge(Aggregate other) {
+            Aggregate into = size >= other.size ? this : other;
+            Aggregate from = into == this ? other : this;
+            for (int i = 0; i < from.keys.length; i++) {
+                if (from.keys[i] != EMPTY) {
+                    into.add(from.keys[i], from.counts[i], from.amounts[i]);
+                }
+            }
+            return into;
+        }
+
+        private Groups toGroups(String[] methodNames) {
+            long[] sortedKeys = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    sortedKeys[n++] = key;
+                }
+            }
+            Arrays.sort(sortedKeys);
+            long[] sortedCounts = new long[size];
+            long[] sortedAmounts = new long[size];
+            int mask = keys.length - 1;
+            for (int k = 0; k < size; k++) {
+                int i = (int) (sortedKeys[k] * 0x9E3779B97F4A7C15L >>> 32) & mask;
+                while (keys[i] != sortedKeys[k]) {
+                    i = (i + 1) & mask;
+                }
+                sortedCounts[k] = counts[i];
+                sortedAmounts[k] = amounts[i];
+            }
+            String[] methods = null;
+            if (methodNames != null) {
+                methods = new String[size];
+                for (int k = 0; k < size; k++) {
+                    methods[k] = methodNames[(int) sortedKeys[k]];
+                }
+            }
+            return new Groups(sortedKeys, sortedCounts, sortedAmounts, methods);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.backend.service.Analyse;
+
+import com.backend.event.PaymentStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Results of the /api/reports endpoints, keyed by endpoint and parameters
+ * and bounded to {@code app.reports.cache.max-entries} (least recently used
+ * evicted first). Each entry records the days its result depends on; a
+ * committed payment change drops only the entries covering that payment's
+ * day, so results for closed periods stay until they are evicted or a
+ * rebuild of their days calls {@link #invalidate}. Concurrent
+ * misses on one key wait for a single computation instead of each running
+ * it.
+ */
+@Service
+public class ReportCache {
+
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Counter evictions;
+
+    public ReportCache(MeterRegistry meterRegistry,
+            @Value("${app.reports.cache.max-entries:500}") int maxEntries) {
+        this.hits = meterRegistry.counter("reports.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("reports.cache.requests", "result", "miss");
+        this.invalidations = meterRegistry.counter("reports.cache.evictions", "cause", "invalidated");
+        this.evictions = meterRegistry.counter("reports.cache.evictions", "cause", "size");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("reports.cache.size", this, cache -> cache.size()).register(meterRegistry);
+        Gauge.builder("reports.cache.hit_ratio", this, cache -> cache.hitRatio()).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for {@code key} or computes it with
+     * {@code loader}. The result depends on payments made on days in
+     * [from, to]; a null bound is open. Results must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, LocalDate from, LocalDate to, Supplier<T> loader) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(from, to);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            hits.increment();
+            try {
+                return (T) entry.value.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            T value = loader.get();
+            entry.value.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // An entry still being computed is dropped too, so a result read before this commit is never kept.
+    // Runs after PaymentColumns, PaymentLedger and SalesRollup have applied the change, so a reload sees it.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        LocalDate day = event.paymentDate() != null ? event.paymentDate().toLocalDate() : null;
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().covers(day)) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    // For changes that publish no payment event: the column load finishing, or a rollup rebuild of [from, to]
+    public void invalidate(LocalDate from, LocalDate to) {
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().overlaps(from, to)) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static final class Entry {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+
+        private Entry(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        // a change without a day could touch anything
+        private boolean covers(LocalDate day) {
+            return day == null || ((from == null || !day.isBefore(from)) && (to == null || !day.isAfter(to)));
+        }
+
+        // null bounds on either side are open
+        private boolean overlaps(LocalDate otherFrom, LocalDate otherTo) {
+            return (otherTo == null || from == null || !from.isAfter(otherTo))
+                    && (otherFrom == null || to == null || !to.isBefore(otherFrom));
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.backend.service.Analyse;
 
 import com.backend.dto.Analyse.ReportDTO;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.repository.PackageRepository;
 import com.backend.repository.PaymentRepository;
+import com.backend.repository.SalesDailyRollupRepository;
+import com.backend.service.payment.PaymentLedger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,8 +13,14 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,112 +29,165 @@ public class ReportService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentLedger paymentLedger;
+
+    @Autowired
+    private SalesDailyRollupRepository salesRollupRepository;
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private PaymentColumns paymentColumns;
+
+    @Autowired
+    private ReportCache reportCache;
+
     public List<ReportDTO> getDailyReport(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        List<Object[]> results = paymentRepository.getDailySalesReport(startDate);
-
-        return results.stream()
-                .map(result -> {
-                    LocalDate date = ((java.sql.Date) result[0]).toLocalDate();
-                    BigDecimal totalSales = (BigDecimal) result[1];
-                    Long count = ((Number) result[2]).longValue();
-                    BigDecimal avgPrice = count > 0
-                            ? totalSales.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
-                    return new ReportDTO(
-                            date.toString(),
-                            count.intValue(),
-                            totalSales,
-                            "Daily Sales - " + date,
-                            avgPrice);
-                })
-                .sorted(Comparator.comparing(ReportDTO::getPeriod))
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return cached("daily", today.minusDays(days), today, today, this::dailyReport);
     }
 
     public List<ReportDTO> getWeeklyReport(int weeks) {
-        LocalDateTime startDate = LocalDateTime.now().minusWeeks(weeks);
-        List<Object[]> results = paymentRepository.getWeeklySalesReport(startDate);
-
-        return results.stream()
-                .map(result -> {
-                    Integer year = (Integer) result[0];
-                    Integer week = (Integer) result[1];
-                    BigDecimal totalSales = (BigDecimal) result[2];
-                    Long count = ((Number) result[3]).longValue();
-                    BigDecimal avgPrice = count > 0
-                            ? totalSales.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
-                    String weekLabel = "Week " + String.format("%02d", week) + " " + year;
-                    String period = year + "-W" + String.format("%02d", week);
-
-                    return new ReportDTO(
-                            period,
-                            count.intValue(),
-                            totalSales,
-                            weekLabel,
-                            avgPrice);
-                })
-                .sorted(Comparator.comparing(ReportDTO::getPeriod))
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        // the current DATEPART(WEEK) week started on Sunday, or on January 1 if that came later
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() % 7);
+        if (weekStart.getYear() != today.getYear()) {
+            weekStart = today.withDayOfYear(1);
+        }
+        return cached("weekly", today.minusWeeks(weeks), weekStart, today, this::weeklyReport);
     }
 
     public List<ReportDTO> getMonthlyReport(int months) {
-        LocalDateTime startDate = LocalDateTime.now().minusMonths(months);
-        List<Object[]> results = paymentRepository.getMonthlySalesReport(startDate);
-
-        return results.stream()
-                .map(result -> {
-                    Integer year = (Integer) result[0];
-                    Integer month = (Integer) result[1];
-                    BigDecimal totalSales = (BigDecimal) result[2];
-                    Long count = ((Number) result[3]).longValue();
-                    BigDecimal avgPrice = count > 0
-                            ? totalSales.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
-                    String monthName = getMonthName(month) + " " + year;
-                    String period = year + "-" + String.format("%02d", month);
-
-                    return new ReportDTO(
-                            period,
-                            count.intValue(),
-                            totalSales,
-                            monthName,
-                            avgPrice);
-                })
-                .sorted(Comparator.comparing(ReportDTO::getPeriod))
+        LocalDate today = LocalDate.now();
+        return cached("monthly", today.minusMonths(months), today.withDayOfMonth(1), today, this::monthlyReport);
+    }
+
+    // Periods before openFrom are closed and stay cached; the open one is recomputed after a payment lands in it.
+    // Nothing is cached until the columns load: the rollup behind the fallback may still be backfilling.
+    private List<ReportDTO> cached(String endpoint, LocalDate from, LocalDate openFrom, LocalDate today,
+            BiFunction<LocalDate, LocalDate, List<ReportDTO>> build) {
+        if (!paymentColumns.isLoaded()) {
+            return build.apply(from, today.plusDays(1));
+        }
+        LocalDate split = openFrom.isBefore(from) ? from : openFrom;
+        List<ReportDTO> reports = new ArrayList<>(reportCache.get(endpoint + "|" + from + "|" + split,
+                from, split.minusDays(1), () -> List.copyOf(build.apply(from, split))));
+        reports.addAll(reportCache.get(endpoint + "|" + split + "|" + today + "|open",
+                split, today, () -> List.copyOf(build.apply(split, today.plusDays(1)))));
+        return reports;
+    }
+
+    private List<ReportDTO> dailyReport(LocalDate from, LocalDate to) {
+        return salesByDay(from, to).entrySet().stream()
+                .map(e -> report(e.getKey().toString(), e.getValue(), "Daily Sales - " + e.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    private List<ReportDTO> weeklyReport(LocalDate from, LocalDate to) {
+        Map<String, Sales> byWeek = new TreeMap<>();
+        Map<String, String> labels = new HashMap<>();
+        salesByDay(from, to).forEach((date, sales) -> {
+            int week = sqlServerWeek(date);
+            String period = date.getYear() + "-W" + String.format("%02d", week);
+            byWeek.merge(period, sales, Sales::plus);
+            labels.putIfAbsent(period, "Week " + String.format("%02d", week) + " " + date.getYear());
+        });
+        return byWeek.entrySet().stream()
+                .map(e -> report(e.getKey(), e.getValue(), labels.get(e.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    private List<ReportDTO> monthlyReport(LocalDate from, LocalDate to) {
+        Map<YearMonth, Sales> byMonth = new TreeMap<>();
+        salesByDay(from, to).forEach((date, sales) -> byMonth.merge(YearMonth.from(date), sales, Sales::plus));
+        return byMonth.entrySet().stream()
+                .map(e -> report(e.getKey().toString(), e.getValue(),
+                        getMonthName(e.getKey().getMonthValue()) + " " + e.getKey().getYear()))
                 .collect(Collectors.toList());
     }
 
     public List<ReportDTO> getPackageWiseSales(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        LocalDateTime endDate = LocalDateTime.now();
-
-        List<Object[]> results = paymentRepository.getPackageSalesByDateRange(startDate, endDate);
-
-        return results.stream()
-                .map(result -> {
-                    String packageName = (String) result[0];
-                    Long count = ((Number) result[1]).longValue();
-                    BigDecimal totalSales = (BigDecimal) result[2];
-                    BigDecimal avgPrice = count > 0
-                            ? totalSales.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
-                    return new ReportDTO(
-                            "Package Summary",
-                            count.intValue(),
-                            totalSales,
-                            packageName,
-                            avgPrice);
-                })
+        LocalDate today = LocalDate.now();
+        if (!paymentColumns.isLoaded()) {
+            return packageWiseSales(days);
+        }
+        return reportCache.get("package-sales|" + days + "|" + today, today.minusDays(days), today,
+                () -> List.copyOf(packageWiseSales(days)));
+    }
+
+    private List<ReportDTO> packageWiseSales(int days) {
+        if (!paymentColumns.isLoaded()) {
+            LocalDateTime startDate = LocalDateTime.now().minusDays(days);
+            LocalDateTime endDate = LocalDateTime.now();
+            return paymentRepository.getPackageSalesByDateRange(startDate, endDate).stream()
+                    .map(result -> report("Package Summary",
+                            new Sales(((Number) result[1]).longValue(), (BigDecimal) result[2]), (String) result[0]))
+                    .sorted((d1, d2) -> d2.getTotalSales().compareTo(d1.getTotalSales()))
+                    .collect(Collectors.toList());
+        }
+
+        PaymentColumns.Groups groups = paymentColumns.sum(PaymentColumns.GroupBy.PACKAGE,
+                LocalDate.now().minusDays(days), LocalDate.now().plusDays(1), PaymentStatus.SUCCESS);
+        List<Long> packageIds = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            packageIds.add(groups.key(i));
+        }
+        Map<Long, String> titles = new HashMap<>();
+        packageRepository.findAllById(packageIds).forEach(p -> titles.put(p.getPackageID(), p.getTitle()));
+
+        // grouped by title like the SQL it replaces; payments without a package are left out
+        Map<String, Sales> byTitle = new HashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            if (titles.containsKey(groups.key(i))) {
+                byTitle.merge(String.valueOf(titles.get(groups.key(i))), new Sales(groups.count(i), groups.amount(i)),
+                        Sales::plus);
+            }
+        }
+        return byTitle.entrySet().stream()
+                .map(e -> report("Package Summary", e.getValue(), e.getKey()))
                 .sorted((d1, d2) -> d2.getTotalSales().compareTo(d1.getTotalSales()))
                 .collect(Collectors.toList());
     }
 
+    // Successful sales per day in [startDate, endDate), from the column store once it is loaded
+    private NavigableMap<LocalDate, Sales> salesByDay(LocalDate startDate, LocalDate endDate) {
+        NavigableMap<LocalDate, Sales> byDay = new TreeMap<>();
+        if (paymentColumns.isLoaded()) {
+            PaymentColumns.Groups groups = paymentColumns.sum(PaymentColumns.GroupBy.DAY, startDate, endDate,
+                    PaymentStatus.SUCCESS);
+            for (int i = 0; i < groups.size(); i++) {
+                byDay.put(LocalDate.ofEpochDay(groups.key(i)), new Sales(groups.count(i), groups.amount(i)));
+            }
+        } else {
+            for (Object[] row : salesRollupRepository.getDailySalesReport(startDate, endDate)) {
+                byDay.put(((java.sql.Date) row[0]).toLocalDate(),
+                        new Sales(((Number) row[2]).longValue(), (BigDecimal) row[1]));
+            }
+        }
+        return byDay;
+    }
+
+    // DATEPART(WEEK, ...) with SQL Server's default DATEFIRST 7: weeks start on Sunday, week 1 holds January 1
+    private static int sqlServerWeek(LocalDate date) {
+        int jan1 = date.withDayOfYear(1).getDayOfWeek().getValue() % 7;
+        return (date.getDayOfYear() + jan1 - 1) / 7 + 1;
+    }
+
+    private static ReportDTO report(String period, Sales sales, String label) {
+        BigDecimal avgPrice = sales.count() > 0
+                ? sales.total().divide(BigDecimal.valueOf(sales.count()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        return new ReportDTO(period, (int) sales.count(), sales.total(), label, avgPrice);
+    }
+
+    private record Sales(long count, BigDecimal total) {
+        private Sales plus(Sales other) {
+            return new Sales(count + other.count, total.add(other.total));
+        }
+    }
+
     private String getMonthName(int month) {
         String[] monthNames = {
                 "January", "February", "March", "April", "May", "June",
@@ -133,19 +196,14 @@ public class ReportService {
         return monthNames[month - 1];
     }
 
+    // Totals over every day, so any payment change drops it
     public Object getDashboardSummary() {
-        List<Object[]> stats = paymentRepository.getPaymentStatistics();
-        if (stats.isEmpty()) {
-            return null;
-        }
-
-        Object[] result = stats.get(0);
-        return new Object() {
-            public final Long totalCount = ((Number) result[0]).longValue();
-            public final BigDecimal successAmount = (BigDecimal) result[1];
-            public final BigDecimal pendingAmount = (BigDecimal) result[2];
-            public final BigDecimal failedAmount = (BigDecimal) result[3];
-            public final BigDecimal refundedAmount = (BigDecimal) result[4];
-        };
+        return reportCache.get("dashboard-summary", null, null, () -> new Object() {
+            public final Long totalCount = paymentLedger.totalCount();
+            public final BigDecimal successAmount = paymentLedger.amount(PaymentStatus.SUCCESS);
+            public final BigDecimal pendingAmount = paymentLedger.amount(PaymentStatus.PENDING);
+            public final BigDecimal failedAmount = paymentLedger.amount(PaymentStatus.FAILED);
+            public final BigDecimal refundedAmount = paymentLedger.amount(PaymentStatus.REFUNDED);
+        });
     }
 }
@@ -0,0 +1,229 @@
+package com.backend.service.Analyse;
+
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps SalesDailyRollup, the successful sales per day, package and method
+ * that the daily, weekly and monthly reports sum instead of grouping the
+ * Payment table. Every committed move into or out of SUCCESS, and every
+ * amount change of a successful payment, is applied as a delta with one
+ * MERGE on its cell.
+ *
+ * An empty rollup is backfilled from Payment in the background on startup,
+ * a month per transaction. A nightly repair rebuilds the last
+ * {@code repair-days} closed days the same way, which also heals any delta
+ * lost to a crash or applied twice while a rebuild was running.
+ */
+@Slf4j
+@Service
+public class SalesRollup {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportCache reportCache;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Counter deltas;
+    private final Timer rebuildTimer;
+    private final int repairDays;
+
+    public SalesRollup(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ReportCache reportCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.reports.rollup.repair-days:7}") int repairDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // a rebuild from afterCommit would otherwise join the finished transaction and autocommit each statement
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reportCache = reportCache;
+        this.deltas = meterRegistry.counter("reports.rollup.deltas");
+        this.rebuildTimer = meterRegistry.timer("reports.rollup.rebuild");
+        this.repairDays = Math.max(1, repairDays);
+    }
+
+    // applied before ReportCache invalidates, so a reload after that sees this change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.paymentDate() == null) {
+            return;
+        }
+        long count = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        if (event.oldStatus() == PaymentStatus.SUCCESS) {
+            count--;
+            amount = amount.subtract(orZero(event.oldAmount()));
+        }
+        if (event.newStatus() == PaymentStatus.SUCCESS) {
+            count++;
+            amount = amount.add(orZero(event.amount()));
+        }
+        if (count == 0 && amount.signum() == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("""
+                    MERGE SalesDailyRollup WITH (HOLDLOCK) AS t
+                    USING (SELECT ? AS day, ? AS packageID, ? AS method) AS s
+                    ON t.day = s.day AND t.packageID = s.packageID AND t.method = s.method
+                    WHEN MATCHED THEN
+                        UPDATE SET salesCount = t.salesCount + ?, salesAmount = t.salesAmount + ?, updatedAt = ?
+                    WHEN NOT MATCHED THEN
+                        INSERT (day, packageID, method, salesCount, salesAmount, updatedAt)
+                        VALUES (s.day, s.packageID, s.method, ?, ?, ?);
+                    """,
+                    event.paymentDate().toLocalDate(),
+                    event.packageId() != null ? event.packageId() : 0L,
+                    event.method() != null ? event.method() : "",
+                    count, amount, LocalDateTime.now(),
+                    count, amount, LocalDateTime.now());
+            deltas.increment();
+        } catch (Exception e) {
+            // the next repair puts the day right
+            log.warn("Failed to apply sales rollup delta for payment {}: {}", event.paymentId(), e.getMessage());
+        }
+    }
+
+    // For edits a delta cannot express, like moving a successful payment to another package
+    public void rebuildAfterCommit(LocalDate day) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    rebuildQuietly(day);
+                }
+            });
+        } else {
+            rebuildQuietly(day);
+        }
+    }
+
+    private void rebuildQuietly(LocalDate day) {
+        try {
+            rebuildRange(day, day.plusDays(1));
+        } catch (Exception e) {
+            log.warn("Failed to rebuild sales rollup for {}: {}", day, e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes the rollup for days in [from, to) from Payment, a month per
+     * transaction, and returns the number of cells written.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Rebuild range must have from before to");
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A sales rollup rebuild is already running");
+        }
+        long start = System.nanoTime();
+        try {
+            int cells = rebuildRange(from, to);
+            log.info("Rebuilt sales rollup from {} to {}: {} cells in {} ms", from, to, cells,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return cells;
+        } finally {
+            rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildRange(LocalDate from, LocalDate to) {
+        int cells = 0;
+        for (LocalDate chunkStart = from; chunkStart.isBefore(to); ) {
+            LocalDate monthEnd = chunkStart.withDayOfMonth(1).plusMonths(1);
+            LocalDate chunkEnd = monthEnd.isBefore(to) ? monthEnd : to;
+            LocalDate chunkFrom = chunkStart;
+            cells += transactionTemplate.execute(status -> rebuildChunk(chunkFrom, chunkEnd));
+            // the rewrite publishes no payment event, so cached results over these days are dropped here
+            reportCache.invalidate(chunkFrom, chunkEnd.minusDays(1));
+            chunkStart = chunkEnd;
+        }
+        return cells;
+    }
+
+    private int rebuildChunk(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM SalesDailyRollup WHERE day >= ? AND day < ?", from, to);
+        return jdbcTemplate.update("""
+                INSERT INTO SalesDailyRollup (day, packageID, method, salesCount, salesAmount, updatedAt)
+                SELECT CAST(paymentDate AS DATE), COALESCE(packageID, 0), COALESCE(method, ''),
+                       COUNT(*), COALESCE(SUM(amount), 0), ?
+                FROM Payment
+                WHERE status = 'SUCCESS' AND paymentDate >= ? AND paymentDate < ?
+                GROUP BY CAST(paymentDate AS DATE), COALESCE(packageID, 0), COALESCE(method, '')
+                """, LocalDateTime.now(), from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    // Today is left to the deltas; a rebuild racing today's commits could count one twice
+    @Scheduled(cron = "${app.reports.rollup.repair-cron:0 15 2 * * *}")
+    public void repairScheduled() {
+        LocalDate today = LocalDate.now();
+        try {
+            rebuild(today.minusDays(repairDays), today);
+        } catch (Exception e) {
+            log.error("Sales rollup repair failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT CASE WHEN EXISTS (SELECT 1 FROM SalesDailyRollup) THEN 1 ELSE 0 END", Integer.class);
+            if (existing != null && existing == 1) {
+                return;
+            }
+            Timestamp first = jdbcTemplate.queryForObject(
+                    "SELECT MIN(paymentDate) FROM Payment WHERE status = 'SUCCESS'", Timestamp.class);
+            if (first == null) {
+                return;
+            }
+            LocalDate from = first.toLocalDateTime().toLocalDate();
+            Thread.ofVirtual().name("sales-rollup-backfill").start(() -> {
+                try {
+                    rebuild(from, LocalDate.now().plusDays(1));
+                } catch (Exception e) {
+                    log.error("Sales rollup backfill failed: {}", e.getMessage(), e);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Could not check the sales rollup for backfill: {}", e.getMessage(), e);
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
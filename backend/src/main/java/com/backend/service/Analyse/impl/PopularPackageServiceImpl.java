@@ -1,13 +1,17 @@
 package com.backend.service.Analyse.impl;
 
 import com.backend.dto.Analyse.PopularPackageDTO;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.repository.PackageRepository;
 import com.backend.repository.PaymentRepository;
+import com.backend.service.Analyse.PaymentColumns;
 import com.backend.service.Analyse.PopularPackageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -17,13 +21,17 @@ import java.util.Optional;
 public class PopularPackageServiceImpl implements PopularPackageService {
 
     private final PaymentRepository paymentRepository;
+    private final PackageRepository packageRepository;
+    private final PaymentColumns paymentColumns;
 
     @Override
     public PopularPackageDTO getMostPopularPackage() {
         try {
             LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
 
-            Optional<Object[]> result = paymentRepository.findMostPopularPackageLast7Days(sevenDaysAgo);
+            Optional<Object[]> result = paymentColumns.isLoaded()
+                    ? mostSoldPackageSince(sevenDaysAgo.toLocalDate())
+                    : paymentRepository.findMostPopularPackageLast7Days(sevenDaysAgo);
 
             if (result.isPresent()) {
                 Object[] row = result.get();
@@ -61,6 +69,25 @@ public class PopularPackageServiceImpl implements PopularPackageService {
         }
     }
 
+    // Same row shape as findMostPopularPackageLast7Days, counted in memory
+    private Optional<Object[]> mostSoldPackageSince(LocalDate from) {
+        PaymentColumns.Groups groups = paymentColumns.sum(PaymentColumns.GroupBy.PACKAGE, from, null,
+                PaymentStatus.SUCCESS);
+        int best = -1;
+        for (int i = 0; i < groups.size(); i++) {
+            if (groups.key(i) != 0 && (best < 0 || groups.count(i) > groups.count(best))) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return Optional.empty();
+        }
+        long salesCount = groups.count(best);
+        return packageRepository.findById(groups.key(best)).map(p -> new Object[] {
+                p.getPackageID(), p.getTitle(), p.getDescription(), p.getPrice(), p.getOffer(), p.getImage(),
+                salesCount });
+    }
+
     private PopularPackageDTO getDefaultPopularPackage() {
         return new PopularPackageDTO(
                 1L,
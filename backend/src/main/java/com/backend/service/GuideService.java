@@ -3,11 +3,13 @@ package com.backend.service;
 import com.backend.entity.Guide;
 import com.backend.entity.enums.GuideStatus;
 import com.backend.repository.GuideRepository;
+import com.backend.service.scheduling.GuideScheduleIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -16,10 +18,21 @@ public class GuideService {
     @Autowired
     private GuideRepository repo;
 
+    @Autowired
+    private GuideScheduleIndex guideSchedule;
+
     public List<Guide> getAllGuides() {
         return repo.findAll();
     }
 
+    public List<Guide> getFreeGuides(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from))
+            throw new IllegalArgumentException("End date must not be before start date");
+        return repo.findAllByStatus(GuideStatus.ACTIVE).stream()
+                .filter(g -> guideSchedule.isFree(g.getGuideID(), from, to))
+                .toList();
+    }
+
     public Guide addGuide(Guide g) {
         if (repo.existsByEmailIgnoreCase(g.getEmail()))
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already exists");
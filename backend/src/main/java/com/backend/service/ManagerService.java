@@ -4,68 +4,205 @@ import com.backend.dto.dashboard.generalManager.DashboardResponseDTO;
 import com.backend.dto.dashboard.generalManager.MonthlyPointDTO;
 import com.backend.dto.dashboard.generalManager.RecentBookingDTO;
 import com.backend.dto.dashboard.generalManager.SharePointDTO;
-import com.backend.repository.PaymentRepository;
+import com.backend.entity.enums.PaymentStatus;
 import com.backend.repository.RefundRepository;
 import com.backend.repository.ReservationRepository;
-import lombok.RequiredArgsConstructor;
+import com.backend.repository.SalesDailyRollupRepository;
+import com.backend.service.Analyse.PaymentColumns;
+import com.backend.service.payment.PaymentLedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Builds the general manager dashboard. Its sections run in parallel on
+ * virtual threads, but at most {@code app.manager.dashboard.max-concurrent-queries}
+ * of them, across all requests, hold a database connection at once. Each
+ * section runs in a read-only transaction whose timeout is the section's
+ * remaining budget, so one abandoned after its timeout has its query
+ * cancelled and its connection returned instead of running on.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ManagerService {
 
-    private final PaymentRepository paymentRepo;
+    private final PaymentLedger paymentLedger;
     private final RefundRepository refundRepo;
     private final ReservationRepository reservationRepo;
+    private final SalesDailyRollupRepository salesRollupRepo;
+    private final PaymentColumns paymentColumns;
+    private final MeterRegistry meterRegistry;
+    private final Environment env;
+    private final PlatformTransactionManager transactionManager;
+    private final Semaphore queryPermits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
+    public ManagerService(PaymentLedger paymentLedger,
+            RefundRepository refundRepo,
+            ReservationRepository reservationRepo,
+            SalesDailyRollupRepository salesRollupRepo,
+            PaymentColumns paymentColumns,
+            MeterRegistry meterRegistry,
+            Environment env,
+            PlatformTransactionManager transactionManager) {
+        this.paymentLedger = paymentLedger;
+        this.refundRepo = refundRepo;
+        this.reservationRepo = reservationRepo;
+        this.salesRollupRepo = salesRollupRepo;
+        this.paymentColumns = paymentColumns;
+        this.meterRegistry = meterRegistry;
+        this.env = env;
+        this.transactionManager = transactionManager;
+        this.queryPermits = new Semaphore(Math.max(1,
+                env.getProperty("app.manager.dashboard.max-concurrent-queries", Integer.class, 4)));
+    }
+
+    // Sections run in parallel on virtual threads; one that fails or runs past its timeout shows its fallback
     public DashboardResponseDTO getDashboard(Authentication auth, int months, int recentLimit, int activeDays,
             int packageMonths, int packageLimit) {
 
         // 1) Earnings (gross, refunds, net)
-        BigDecimal gross = opt(paymentRepo.sumSuccessfulAmount());
-        BigDecimal refunds = opt(refundRepo.sumRefundsIssued());
-        BigDecimal net = gross.subtract(refunds);
-        if (net.compareTo(BigDecimal.ZERO) < 0)
-            net = BigDecimal.ZERO;
+        CompletableFuture<BigDecimal> gross = section("gross", BigDecimal.ZERO,
+                () -> paymentLedger.amount(PaymentStatus.SUCCESS));
+        CompletableFuture<BigDecimal> refunds = section("refunds", BigDecimal.ZERO,
+                () -> opt(refundRepo.sumRefundsIssued()));
 
         // 2) Counts
-        long totalBookings = reservationRepo.totalReservations();
-        long completedBookings = reservationRepo.completedReservations();
-        long activeUsers = reservationRepo.activeUsersLastDays(activeDays);
+        CompletableFuture<Long> totalBookings = section("totalBookings", 0L, reservationRepo::totalReservations);
+        CompletableFuture<Long> completedBookings = section("completedBookings", 0L,
+                reservationRepo::completedReservations);
+        CompletableFuture<Long> activeUsers = section("activeUsers", 0L,
+                () -> reservationRepo.activeUsersLastDays(activeDays));
 
         // 3) Monthly earning series (ensure missing months show as 0)
+        CompletableFuture<List<MonthlyPointDTO>> earningSeries = section("earningSeries", List.of(),
+                () -> earningSeries(months));
+
+        // 4) Package share (top packages in period, % of total reservations in top
+        // packages)
+        CompletableFuture<List<SharePointDTO>> packageShare = section("packageShare", List.of(),
+                () -> packageShare(packageMonths, packageLimit));
+
+        // 5) Recent bookings
+        CompletableFuture<List<RecentBookingDTO>> recent = section("recentBookings", List.of(),
+                () -> recentBookings(recentLimit));
+
+        BigDecimal net = gross.join().subtract(refunds.join());
+        if (net.compareTo(BigDecimal.ZERO) < 0)
+            net = BigDecimal.ZERO;
+
+        String fName = (auth != null && auth.getName() != null) ? auth.getName() : "Manager";
+
+        return new DashboardResponseDTO(
+                fName,
+                net,
+                gross.join(),
+                refunds.join(),
+                totalBookings.join(),
+                completedBookings.join(),
+                activeUsers.join(),
+                earningSeries.join(),
+                packageShare.join(),
+                recent.join());
+    }
+
+    // Never completes exceptionally: errors and timeouts turn into the fallback
+    private <T> CompletableFuture<T> section(String name, T fallback, Supplier<T> query) {
+        long timeoutMs = env.getProperty("app.manager.dashboard.sections." + name + ".timeout-ms", Long.class,
+                env.getProperty("app.manager.dashboard.timeout-ms", Long.class, 2000L));
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> bounded(name, start, timeoutMs, query), executor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    String outcome = cause == null ? "ok" : cause instanceof TimeoutException ? "timeout" : "error";
+                    meterRegistry.timer("manager.dashboard.section", "section", name, "outcome", outcome)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (cause != null) {
+                        log.warn("Dashboard section {} fell back ({}): {}", name, outcome, cause.getMessage());
+                        return fallback;
+                    }
+                    return value;
+                });
+    }
+
+    // Waits for a permit within the section's budget and spends the rest of it as the transaction timeout
+    private <T> T bounded(String name, long start, long timeoutMs, Supplier<T> query) {
+        long remainingMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        try {
+            if (remainingMs <= 0 || !queryPermits.tryAcquire(remainingMs, TimeUnit.MILLISECONDS)) {
+                throw new CompletionException(new TimeoutException("No query permit for section " + name));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            remainingMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            // whole seconds, rounded up
+            tx.setTimeout((int) Math.max(1, (remainingMs + 999) / 1000));
+            return tx.execute(status -> query.get());
+        } finally {
+            queryPermits.release();
+        }
+    }
+
+    private List<MonthlyPointDTO> earningSeries(int months) {
         Map<LocalDate, Double> monthMap = new LinkedHashMap<>();
         LocalDate start = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1);
         for (int i = 0; i < months; i++) {
             monthMap.put(start.plusMonths(i), 0d);
         }
-        for (Object[] row : paymentRepo.monthlySuccessfulSums(months)) {
-            LocalDate monthStart = ((java.sql.Date) row[0]).toLocalDate();
-            double total = ((Number) row[1]).doubleValue();
-            monthMap.put(monthStart, total);
+        if (paymentColumns.isLoaded()) {
+            PaymentColumns.Groups days = paymentColumns.sum(PaymentColumns.GroupBy.DAY, start, null,
+                    PaymentStatus.SUCCESS);
+            for (int i = 0; i < days.size(); i++) {
+                LocalDate monthStart = LocalDate.ofEpochDay(days.key(i)).withDayOfMonth(1);
+                monthMap.merge(monthStart, days.amount(i).doubleValue(), Double::sum);
+            }
+        } else {
+            for (Object[] row : salesRollupRepo.monthlySuccessfulSums(months)) {
+                LocalDate monthStart = ((java.sql.Date) row[0]).toLocalDate();
+                double total = ((Number) row[1]).doubleValue();
+                monthMap.put(monthStart, total);
+            }
         }
-        List<MonthlyPointDTO> earningSeries = monthMap.entrySet().stream()
+        return monthMap.entrySet().stream()
                 .map(e -> new MonthlyPointDTO(
                         e.getKey(),
                         e.getKey().getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " "
                                 + e.getKey().getYear(),
                         e.getValue()))
                 .collect(Collectors.toList());
+    }
 
-        // 4) Package share (top packages in period, % of total reservations in top
-        // packages)
+    private List<SharePointDTO> packageShare(int packageMonths, int packageLimit) {
         List<Object[]> topPackages = reservationRepo.topPackageCounts(packageMonths, packageLimit);
         long totalTopPackageReservations = topPackages.stream()
                 .mapToLong(r -> ((Number) r[1]).longValue())
                 .sum();
-        List<SharePointDTO> packageShare = topPackages.stream()
+        return topPackages.stream()
                 .map(r -> {
                     String title = (String) r[0];
                     long cnt = ((Number) r[1]).longValue();
@@ -73,9 +210,10 @@ public class ManagerService {
                     return new SharePointDTO(title, round1(pct));
                 })
                 .collect(Collectors.toList());
+    }
 
-        // 5) Recent bookings
-        List<RecentBookingDTO> recent = reservationRepo.recentBookings(recentLimit).stream()
+    private List<RecentBookingDTO> recentBookings(int recentLimit) {
+        return reservationRepo.recentBookings(recentLimit).stream()
                 .map(r -> {
                     Long id = ((Number) r[0]).longValue();
                     String customer = (String) r[1];
@@ -86,20 +224,6 @@ public class ManagerService {
                     return new RecentBookingDTO(id, code, customer, tourType, date, status);
                 })
                 .collect(Collectors.toList());
-
-        String fName = (auth != null && auth.getName() != null) ? auth.getName() : "Manager";
-
-        return new DashboardResponseDTO(
-                fName,
-                net,
-                gross,
-                refunds,
-                totalBookings,
-                completedBookings,
-                activeUsers,
-                earningSeries,
-                packageShare,
-                recent);
     }
 
     private static BigDecimal opt(BigDecimal b) {
@@ -109,4 +233,9 @@ public class ManagerService {
     private static double round1(double v) {
         return Math.round(v * 10.0) / 10.0;
     }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
 }
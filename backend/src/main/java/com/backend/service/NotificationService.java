@@ -1,16 +1,79 @@
 package com.backend.service;
 
+import com.backend.entity.NotificationOutbox;
 import com.backend.entity.Reservation;
+import com.backend.entity.enums.NotificationStatus;
+import com.backend.repository.NotificationOutboxRepository;
+import com.backend.service.notification.NotificationDispatcher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class NotificationService {
 
+    public static final String RESERVATION_STATUS = "RESERVATION_STATUS";
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationDispatcher dispatcher;
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationService(NotificationOutboxRepository outboxRepository, NotificationDispatcher dispatcher,
+            JdbcTemplate jdbcTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Queues the notification in the caller's transaction; NotificationDispatcher delivers it after commit
     public void sendConfirmation(Reservation reservation) {
-        System.out.println("=== Notification Sent ===");
-        System.out.println("To User ID: " + reservation.getClient().getUserID());
-        System.out.println("Reservation ID: " + reservation.getReservationID());
-        System.out.println("Status: " + reservation.getStatus());
-        System.out.println("=========================");
+        NotificationOutbox entry = new NotificationOutbox();
+        entry.setUserID(reservation.getClient().getUserID());
+        entry.setReservationID(reservation.getReservationID());
+        entry.setType(RESERVATION_STATUS);
+        entry.setMessage("Status: " + reservation.getStatus());
+        outboxRepository.save(entry);
+        wakeAfterCommit();
+    }
+
+    // Same as sendConfirmation for many reservations, queued with one multi-row INSERT
+    public void sendConfirmations(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> params = new ArrayList<>(reservations.size() * 7);
+        StringBuilder values = new StringBuilder();
+        for (Reservation reservation : reservations) {
+            values.append(values.isEmpty() ? "(?, ?, ?, ?, ?, 0, ?, ?)" : ", (?, ?, ?, ?, ?, 0, ?, ?)");
+            params.add(reservation.getClient().getUserID());
+            params.add(reservation.getReservationID());
+            params.add(RESERVATION_STATUS);
+            params.add("Status: " + reservation.getStatus());
+            params.add(NotificationStatus.PENDING.name());
+            params.add(now);
+            params.add(now);
+        }
+        jdbcTemplate.update("INSERT INTO NotificationOutbox (userID, reservationID, type, message, status, attempts, "
+                + "nextAttemptAt, created_at) VALUES " + values, params.toArray());
+        wakeAfterCommit();
+    }
+
+    private void wakeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wake();
+                }
+            });
+        } else {
+            dispatcher.wake();
+        }
     }
 }
@@ -1,15 +1,26 @@
 package com.backend.service;
 
 import com.backend.dto.Analyse.PaymentDTO;
+import com.backend.dto.Analyse.PaymentStatusDTO;
 import com.backend.entity.Payment;
 import com.backend.entity.Packages;
 import com.backend.entity.Client;
 import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
 import com.backend.repository.ClientRepository;
 import com.backend.repository.PaymentRepository;
 import com.backend.repository.PackageRepository;
+import com.backend.designpatterns.PaymentStrategyRegistry;
+import com.backend.service.Analyse.SalesRollup;
+import com.backend.service.payment.PaymentExpirySweeper;
+import com.backend.service.payment.PaymentLedger;
+import com.backend.service.payment.PaymentProcessor;
+import com.backend.service.payment.RecentPayments;
+import com.backend.service.payment.VelocityGuard;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -30,91 +41,29 @@ public class PaymentService {
     @Autowired
     private ClientRepository clientRepository;
 
-    public interface PaymentStrategy {
-        boolean processPayment(BigDecimal amount);
-
-        String getStrategyName();
-    }
-
-    public static class CreditCardPayment implements PaymentStrategy {
-        @Override
-        public boolean processPayment(BigDecimal amount) {
-            System.out.println("Processing credit card payment of LKR " + amount);
-            boolean success = Math.random() < 0.85;
-            System.out.println("Credit Card Payment " + (success ? "SUCCESSFUL" : "FAILED"));
-            return success;
-        }
-
-        @Override
-        public String getStrategyName() {
-            return "Credit Card";
-        }
-    }
-
-    public static class BankTransferPayment implements PaymentStrategy {
-        @Override
-        public boolean processPayment(BigDecimal amount) {
-            System.out.println("Processing bank transfer of LKR " + amount);
-            boolean success = Math.random() < 0.95;
-            System.out.println("Bank Transfer " + (success ? "SUCCESSFUL" : "FAILED"));
-            return success;
-        }
-
-        @Override
-        public String getStrategyName() {
-            return "Bank Transfer";
-        }
-    }
-
-    public static class DigitalWalletPayment implements PaymentStrategy {
-        @Override
-        public boolean processPayment(BigDecimal amount) {
-            System.out.println("Processing digital wallet payment of LKR " + amount);
-            boolean success = Math.random() < 0.90;
-            System.out.println("Digital Wallet Payment " + (success ? "SUCCESSFUL" : "FAILED"));
-            return success;
-        }
+    @Autowired
+    private PaymentProcessor paymentProcessor;
 
-        @Override
-        public String getStrategyName() {
-            return "Digital Wallet";
-        }
-    }
+    @Autowired
+    private PaymentStrategyRegistry paymentStrategies;
 
-    public static class CashPayment implements PaymentStrategy {
-        @Override
-        public boolean processPayment(BigDecimal amount) {
-            System.out.println("Processing cash payment of LKR " + amount);
-            System.out.println("Cash Payment SUCCESSFUL");
-            return true;
-        }
+    @Autowired
+    private PaymentExpirySweeper paymentExpirySweeper;
 
-        @Override
-        public String getStrategyName() {
-            return "Cash";
-        }
-    }
+    @Autowired
+    private PaymentLedger paymentLedger;
 
-    public static class PaymentContext {
-        private PaymentStrategy strategy;
+    @Autowired
+    private RecentPayments recentPayments;
 
-        public void setPaymentStrategy(PaymentStrategy strategy) {
-            this.strategy = strategy;
-        }
+    @Autowired
+    private VelocityGuard velocityGuard;
 
-        public boolean executePayment(BigDecimal amount) {
-            if (strategy == null) {
-                System.out.println("No payment strategy selected.");
-                return false;
-            } else {
-                return strategy.processPayment(amount);
-            }
-        }
+    @Autowired
+    private SalesRollup salesRollup;
 
-        public String getStrategyName() {
-            return strategy != null ? strategy.getStrategyName() : "Unknown";
-        }
-    }
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private PaymentDTO convertToDTO(Payment payment) {
         PaymentDTO dto = new PaymentDTO();
@@ -142,6 +91,10 @@ public class PaymentService {
         return dto;
     }
 
+    private static Long packageIdOf(Payment payment) {
+        return payment.getPackages() != null ? payment.getPackages().getPackageID() : null;
+    }
+
     private Payment convertToEntity(PaymentDTO dto) {
         Payment payment = new Payment();
 
@@ -180,7 +133,12 @@ public class PaymentService {
 
         Payment payment = convertToEntity(paymentDTO);
         Payment savedPayment = paymentRepository.save(payment);
-        return convertToDTO(savedPayment);
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(savedPayment.getPaymentID(), packageIdOf(savedPayment),
+                savedPayment.getAmount(), null, savedPayment.getStatus(), savedPayment.getPaymentDate(),
+                savedPayment.getMethod()));
+        PaymentDTO created = convertToDTO(savedPayment);
+        recentPayments.addAfterCommit(created);
+        return created;
     }
 
     public List<PaymentDTO> getAllPayments() {
@@ -235,6 +193,10 @@ public class PaymentService {
 
     public Optional<PaymentDTO> updatePayment(Long id, PaymentDTO paymentDTO) {
         return paymentRepository.findById(id).map(existingPayment -> {
+            PaymentStatus oldStatus = existingPayment.getStatus();
+            BigDecimal oldAmount = existingPayment.getAmount();
+            Long oldPackageId = packageIdOf(existingPayment);
+            String oldMethod = existingPayment.getMethod();
             if (paymentDTO.getAmount() != null)
                 existingPayment.setAmount(paymentDTO.getAmount());
             if (paymentDTO.getMethod() != null)
@@ -251,69 +213,74 @@ public class PaymentService {
 
             existingPayment.setUpdatedAt(LocalDateTime.now());
             Payment updatedPayment = paymentRepository.save(existingPayment);
-            return convertToDTO(updatedPayment);
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(id, packageIdOf(updatedPayment),
+                    updatedPayment.getAmount(), oldStatus, updatedPayment.getStatus(), oldAmount,
+                    updatedPayment.getPaymentDate(), updatedPayment.getMethod()));
+            // the rollup delta lands on the new package and method, so recount the day instead
+            boolean movedSale = (oldStatus == PaymentStatus.SUCCESS || updatedPayment.getStatus() == PaymentStatus.SUCCESS)
+                    && (!Objects.equals(oldPackageId, packageIdOf(updatedPayment))
+                            || !Objects.equals(oldMethod, updatedPayment.getMethod()));
+            if (movedSale && updatedPayment.getPaymentDate() != null) {
+                salesRollup.rebuildAfterCommit(updatedPayment.getPaymentDate().toLocalDate());
+            }
+            PaymentDTO updated = convertToDTO(updatedPayment);
+            recentPayments.replaceAfterCommit(updated);
+            return updated;
         });
     }
 
     public boolean deletePayment(Long id) {
-        if (paymentRepository.existsById(id)) {
-            paymentRepository.deleteById(id);
+        return paymentRepository.findById(id).map(payment -> {
+            paymentRepository.delete(payment);
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(id, packageIdOf(payment),
+                    null, payment.getStatus(), null, payment.getAmount(), payment.getPaymentDate(),
+                    payment.getMethod()));
             return true;
-        }
-        return false;
+        }).orElse(false);
     }
 
+    // Records the payment as PENDING and hands the gateway call to PaymentProcessor after commit
     public PaymentDTO processPayment(PaymentDTO paymentDTO) {
+        if (!paymentStrategies.supports(paymentDTO.getMethod())) {
+            throw new IllegalArgumentException("Unsupported payment method: " + paymentDTO.getMethod());
+        }
+        // before any write, so a blocked burst costs neither a row nor a gateway call
+        velocityGuard.check(paymentDTO.getUserId(), paymentDTO.getMethod(), paymentDTO.getAmount());
         paymentDTO.setStatus(PaymentStatus.PENDING);
         PaymentDTO createdPayment = createPayment(paymentDTO);
-
-        boolean paymentSuccessful = simulatePaymentProcessing();
-        PaymentStatus newStatus = paymentSuccessful ? PaymentStatus.SUCCESS : PaymentStatus.FAILED;
-
-        PaymentDTO statusUpdateDTO = new PaymentDTO();
-        statusUpdateDTO.setStatus(newStatus);
-
-        return updatePayment(createdPayment.getPaymentId(), statusUpdateDTO)
-                .orElse(createdPayment);
+        paymentProcessor.submitAfterCommit(createdPayment.getPaymentId(), createdPayment.getUserId(),
+                createdPayment.getPackageId(), createdPayment.getMethod(), createdPayment.getAmount());
+        return createdPayment;
     }
 
-    private boolean simulatePaymentProcessing() {
-        return Math.random() < 0.9;
+    @Transactional(readOnly = true)
+    public Optional<PaymentStatusDTO> getPaymentStatus(Long id) {
+        return paymentRepository.findStatusById(id);
     }
 
     public BigDecimal getTotalConfirmedAmount() {
-        return paymentRepository.getTotalSuccessAmount();
+        return paymentLedger.amount(PaymentStatus.SUCCESS);
     }
 
     public BigDecimal getTotalAmountByStatus(PaymentStatus status) {
-        return paymentRepository.getTotalAmountByStatus(status.name());
+        return paymentLedger.amount(status);
     }
 
     public long getCountByStatus(PaymentStatus status) {
-        return paymentRepository.countByStatus(status.name());
+        return paymentLedger.count(status);
     }
 
     public long getTotalConfirmedCount() {
         return getCountByStatus(PaymentStatus.SUCCESS);
     }
 
-    public List<PaymentDTO> getRecentPayments() {
-        return paymentRepository.findRecentPayments()
-                .stream()
-                .limit(10)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<PaymentDTO> getRecentPayments(int limit) {
+        return recentPayments.latest(limit);
     }
 
+    // chunks commit on their own, so this must not run inside one big transaction
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int cleanupExpiredPendingPayments(int minutesOld) {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(minutesOld);
-        List<Payment> expiredPayments = paymentRepository.findExpiredPendingPayments(cutoffTime);
-
-        for (Payment payment : expiredPayments) {
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setUpdatedAt(LocalDateTime.now());
-            paymentRepository.save(payment);
-        }
-        return expiredPayments.size();
+        return paymentExpirySweeper.sweep(minutesOld);
     }
 }
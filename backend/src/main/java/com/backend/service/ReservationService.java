@@ -11,11 +11,29 @@ import com.backend.repository.GuideRepository;
 import com.backend.repository.ClientRepository;
 import com.backend.repository.PackageRepository;
 import com.backend.repository.PaymentRepository;
+import com.backend.dto.reservaton.GroupReservationCreateDTO;
 import com.backend.dto.reservaton.ReservationCreateDTO;
+import com.backend.event.ReservationStatusChangedEvent;
+import com.backend.service.inventory.CapacityCalendar;
+import com.backend.service.inventory.SeatHoldService;
+import com.backend.service.inventory.SeatInventory;
+import com.backend.service.scheduling.GuideScheduleIndex;
+import com.backend.service.waitlist.WaitlistService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
@@ -26,31 +44,175 @@ public class ReservationService {
     private final ClientRepository clientRepository;
     private final PackageRepository packageRepository;
     private final PaymentRepository paymentRepository;
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final CapacityCalendar capacityCalendar;
+    private final GuideScheduleIndex guideSchedule;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.reservation.hold-ttl-minutes:15}")
+    private int defaultHoldMinutes;
+
+    @Value("${app.reservation.hold-max-minutes:60}")
+    private int maxHoldMinutes;
+
+    @Value("${app.reservation.group-max-size:50}")
+    private int maxGroupSize;
 
     public ReservationService(ReservationRepository reservationRepository,
             NotificationService notificationService,
             GuideRepository guideRepository,
             ClientRepository clientRepository,
             PackageRepository packageRepository,
-            PaymentRepository paymentRepository) {
+            PaymentRepository paymentRepository,
+            SeatInventory seatInventory,
+            SeatHoldService seatHoldService,
+            CapacityCalendar capacityCalendar,
+            GuideScheduleIndex guideSchedule,
+            WaitlistService waitlistService,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate) {
         this.reservationRepository = reservationRepository;
         this.notificationService = notificationService;
         this.guideRepository = guideRepository;
         this.clientRepository = clientRepository;
         this.packageRepository = packageRepository;
         this.paymentRepository = paymentRepository;
+        this.seatInventory = seatInventory;
+        this.seatHoldService = seatHoldService;
+        this.capacityCalendar = capacityCalendar;
+        this.guideSchedule = guideSchedule;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
-    public List<Reservation> getAllActiveReservations() {
-        return reservationRepository.findAllByOrderByCreatedAtDesc();
+    @Transactional
+    public Reservation createReservation(ReservationCreateDTO dto) {
+        Reservation saved = reservationRepository.save(newReservation(dto, ReservationStatus.CONFIRMED));
+        claimGuide(saved);
+        publishStatusChange(saved, null);
+        try {
+            notificationService.sendConfirmation(saved);
+        } catch (Exception ignored) {
+        }
+        return saved;
     }
 
-    public List<Reservation> getHistoryByUser(Long userId) {
-        return reservationRepository.findByClient_UserIDOrderByCreatedAtDesc(userId);
+    // Holds a seat as a PENDING reservation until payment completes or the hold expires
+    @Transactional
+    public Reservation createHold(ReservationCreateDTO dto, Integer ttlMinutes) {
+        int minutes = ttlMinutes != null ? ttlMinutes : defaultHoldMinutes;
+        if (minutes <= 0 || minutes > maxHoldMinutes) {
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxHoldMinutes + " minutes");
+        }
+
+        Reservation reservation = newReservation(dto, ReservationStatus.PENDING);
+        reservation.setHoldExpiresAt(LocalDateTime.now().plusMinutes(minutes));
+
+        Reservation saved = reservationRepository.save(reservation);
+        claimGuide(saved);
+        publishStatusChange(saved, null);
+        seatHoldService.scheduleAfterCommit(saved.getReservationID(), saved.getHoldExpiresAt());
+        return saved;
     }
 
+    // Books every traveller of a group or none of them, with a fixed number of statements whatever its size
     @Transactional
-    public Reservation createReservation(ReservationCreateDTO dto) {
+    public List<Reservation> createGroupReservation(GroupReservationCreateDTO dto) {
+        List<Long> userIds = dto.getUserIds();
+        if (userIds == null || userIds.isEmpty() || dto.getPackageId() == null || userIds.contains(null)) {
+            throw new IllegalArgumentException("User IDs and Package ID are required");
+        }
+        if (userIds.size() > maxGroupSize) {
+            throw new IllegalArgumentException("A group booking can have at most " + maxGroupSize + " travellers");
+        }
+        if (new HashSet<>(userIds).size() != userIds.size()) {
+            throw new IllegalArgumentException("Each traveller can only be listed once in a group booking");
+        }
+
+        Map<Long, Client> clients = clientRepository.findAllById(new HashSet<>(userIds)).stream()
+                .collect(Collectors.toMap(Client::getUserID, Function.identity()));
+        for (Long userId : userIds) {
+            if (!clients.containsKey(userId)) {
+                throw new RuntimeException("Client not found: " + userId);
+            }
+        }
+        Packages pkg = packageRepository.findById(dto.getPackageId())
+                .orElseThrow(() -> new RuntimeException("Package not found: " + dto.getPackageId()));
+        Guide guide = dto.getGuideId() == null ? null : guideRepository.findById(dto.getGuideId())
+                .orElseThrow(() -> new RuntimeException("Guide not found: " + dto.getGuideId()));
+        Payment payment = dto.getPaymentId() == null ? null : paymentRepository.findById(dto.getPaymentId())
+                .orElseThrow(() -> new RuntimeException("Payment not found: " + dto.getPaymentId()));
+
+        LocalDate startDate = dto.getStartDate() != null ? dto.getStartDate() : LocalDate.now().plusDays(7);
+        LocalDate endDate = dto.getEndDate() != null ? dto.getEndDate() : LocalDate.now().plusDays(14);
+        int seats = userIds.size();
+        capacityCalendar.book(pkg, startDate, endDate, seats);
+        seatInventory.reserve(pkg, seats);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Reservation> group = new ArrayList<>(seats);
+        List<Object> params = new ArrayList<>(seats * 8);
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < seats; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setClient(clients.get(userIds.get(i)));
+            reservation.setPackages(pkg);
+            reservation.setGuide(guide);
+            // the payment row is one-to-one with a reservation, so it goes on the lead traveller
+            reservation.setPayment(i == 0 ? payment : null);
+            reservation.setStatus(ReservationStatus.CONFIRMED);
+            reservation.setStartDate(startDate);
+            reservation.setEndDate(endDate);
+            reservation.setCreatedAt(now);
+            group.add(reservation);
+
+            values.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+            params.add(userIds.get(i));
+            params.add(pkg.getPackageID());
+            params.add(guide != null ? guide.getGuideID() : null);
+            params.add(i == 0 && payment != null ? payment.getPaymentID() : null);
+            params.add(ReservationStatus.CONFIRMED.name());
+            params.add(startDate);
+            params.add(endDate);
+            params.add(now);
+        }
+        // neither OUTPUT order nor identity order is tied to VALUES order, so IDs are matched by traveller
+        Map<Long, Long> idByUser = new HashMap<>();
+        jdbcTemplate.query("""
+                INSERT INTO Reservation (userID, packageID, guideID, paymentID, status, startDate, endDate, createdAt)
+                OUTPUT inserted.reservationID, inserted.userID
+                VALUES """ + values, rs -> {
+            idByUser.put(rs.getLong("userID"), rs.getLong("reservationID"));
+        }, params.toArray());
+        if (idByUser.size() != seats) {
+            throw new IllegalStateException("Expected " + seats + " reservations but inserted " + idByUser.size());
+        }
+
+        for (Reservation reservation : group) {
+            reservation.setReservationID(idByUser.get(reservation.getClient().getUserID()));
+        }
+        Long groupId = group.get(0).getReservationID();
+        List<Object> groupParams = new ArrayList<>(seats + 1);
+        groupParams.add(groupId);
+        group.forEach(reservation -> groupParams.add(reservation.getReservationID()));
+        jdbcTemplate.update("UPDATE Reservation SET groupID = ? WHERE reservationID IN ("
+                + String.join(", ", Collections.nCopies(seats, "?")) + ")", groupParams.toArray());
+
+        for (Reservation reservation : group) {
+            reservation.setGroupID(groupId);
+            publishStatusChange(reservation, null);
+            // members share the guide, so their claims may overlap each other
+            claimGuide(reservation);
+        }
+        notificationService.sendConfirmations(group);
+        return group;
+    }
+
+    private Reservation newReservation(ReservationCreateDTO dto, ReservationStatus status) {
         if (dto.getUserId() == null || dto.getPackageId() == null) {
             throw new IllegalArgumentException("User ID and Package ID are required");
         }
@@ -61,19 +223,17 @@ public class ReservationService {
         Packages pkg = packageRepository.findById(dto.getPackageId())
                 .orElseThrow(() -> new RuntimeException("Package not found: " + dto.getPackageId()));
 
-        if (pkg.getAvailable() != null && pkg.getAvailable() > 0) {
-            pkg.setAvailable(pkg.getAvailable() - 1);
-            packageRepository.save(pkg);
-        }
-
         Reservation reservation = new Reservation();
         reservation.setClient(client);
         reservation.setPackages(pkg);
-        reservation.setStatus(ReservationStatus.CONFIRMED);
+        reservation.setStatus(status);
         reservation.setStartDate(dto.getStartDate() != null ? dto.getStartDate() : java.time.LocalDate.now().plusDays(7));
         reservation.setEndDate(dto.getEndDate() != null ? dto.getEndDate() : java.time.LocalDate.now().plusDays(14));
         reservation.setCreatedAt(LocalDateTime.now());
 
+        capacityCalendar.book(pkg, reservation.getStartDate(), reservation.getEndDate(), 1);
+        seatInventory.reserve(pkg, 1);
+
         if (dto.getGuideId() != null) {
             Guide guide = guideRepository.findById(dto.getGuideId()).orElse(null);
             reservation.setGuide(guide);
@@ -83,13 +243,7 @@ public class ReservationService {
             Payment payment = paymentRepository.findById(dto.getPaymentId()).orElse(null);
             reservation.setPayment(payment);
         }
-
-        Reservation saved = reservationRepository.save(reservation);
-        try {
-            notificationService.sendConfirmation(saved);
-        } catch (Exception ignored) {
-        }
-        return saved;
+        return reservation;
     }
 
     @Transactional
@@ -97,6 +251,12 @@ public class ReservationService {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reservation not found: " + id));
 
+        if (!SeatInventory.holdsSeat(reservation.getStatus())) {
+            capacityCalendar.book(reservation.getPackages(), reservation.getStartDate(), reservation.getEndDate(), 1);
+            seatInventory.reserve(reservation.getPackages(), 1);
+        }
+        ReservationStatus previous = reservation.getStatus();
+        clearHold(reservation);
         reservation.setStatus(ReservationStatus.CONFIRMED);
 
         if (guideId != null) {
@@ -106,6 +266,8 @@ public class ReservationService {
         }
 
         Reservation saved = reservationRepository.save(reservation);
+        claimGuide(saved);
+        publishStatusChange(saved, previous);
         notificationService.sendConfirmation(saved);
         return saved;
     }
@@ -120,21 +282,31 @@ public class ReservationService {
                     "Invalid status transition: " + reservation.getStatus() + " -> " + newStatus);
         }
 
+        if (SeatInventory.holdsSeat(reservation.getStatus()) && !SeatInventory.holdsSeat(newStatus)) {
+            freeSeat(reservation);
+        }
+        if (newStatus != ReservationStatus.PENDING) {
+            clearHold(reservation);
+        }
+
+        ReservationStatus previous = reservation.getStatus();
         reservation.setStatus(newStatus);
-        return reservationRepository.save(reservation);
+        Reservation saved = reservationRepository.save(reservation);
+        publishStatusChange(saved, previous);
+        return saved;
     }
 
     @Transactional
     public void deleteReservation(Long id) {
-        if (!reservationRepository.existsById(id)) {
-            throw new RuntimeException("Reservation not found: " + id);
+        Reservation reservation = reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reservation not found: " + id));
+        if (SeatInventory.holdsSeat(reservation.getStatus())) {
+            freeSeat(reservation);
         }
-        reservationRepository.deleteById(id);
-    }
-
-    public Reservation findById(Long id) {
-        return reservationRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+        clearHold(reservation);
+        reservationRepository.delete(reservation);
+        eventPublisher.publishEvent(new ReservationStatusChangedEvent(
+                id, reservation.getPackages().getPackageID(), reservation.getStatus(), null));
     }
 
     @Transactional
@@ -148,10 +320,46 @@ public class ReservationService {
         reservation.setGuide(guide);
 
         Reservation saved = reservationRepository.save(reservation);
+        claimGuide(saved);
         notificationService.sendConfirmation(saved);
         return saved;
     }
 
+    private void claimGuide(Reservation reservation) {
+        if (reservation.getGuide() != null && GuideScheduleIndex.blocksGuide(reservation.getStatus())) {
+            guideSchedule.claim(reservation.getGuide().getGuideID(), reservation.getReservationID(),
+                    reservation.getGroupID(), reservation.getStartDate(), reservation.getEndDate());
+        }
+    }
+
+    private void publishStatusChange(Reservation reservation, ReservationStatus previous) {
+        if (previous != reservation.getStatus()) {
+            eventPublisher.publishEvent(new ReservationStatusChangedEvent(
+                    reservation.getReservationID(), reservation.getPackages().getPackageID(),
+                    previous, reservation.getStatus()));
+        }
+    }
+
+    // Hands the seat to the head of the package's waitlist, or returns it to inventory if nobody fits
+    private void freeSeat(Reservation reservation) {
+        if (waitlistService.handOff(reservation) == null) {
+            releaseSeat(reservation);
+        }
+    }
+
+    private void releaseSeat(Reservation reservation) {
+        Long packageId = reservation.getPackages().getPackageID();
+        seatInventory.releaseAfterCommit(packageId, 1);
+        capacityCalendar.releaseAfterCommit(packageId, reservation.getStartDate(), reservation.getEndDate(), 1);
+    }
+
+    private void clearHold(Reservation reservation) {
+        if (reservation.getHoldExpiresAt() != null) {
+            reservation.setHoldExpiresAt(null);
+            seatHoldService.cancelAfterCommit(reservation.getReservationID());
+        }
+    }
+
     private boolean isAllowedTransition(ReservationStatus current, ReservationStatus next) {
         if (current == null)
             return true;
@@ -0,0 +1,319 @@
+package com.backend.service.dashboard;
+
+import com.backend.dto.dashboard.generalManager.DashboardTotalsDTO;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import com.backend.event.ReservationStatusChangedEvent;
+import com.backend.repository.ReservationRepository;
+import com.backend.service.payment.PaymentLedger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live deltas for the manager dashboard over Server-Sent Events: a new
+ * booking, a successful payment, a refunded payment, or a change to the
+ * running totals, each carrying the totals after it.
+ *
+ * Commit listeners only put the change on a queue. A single broadcaster
+ * thread turns it into one serialized event, keeps it in a replay buffer of
+ * {@code app.manager.dashboard.stream.replay-size} events and writes that
+ * same frame to every subscriber, so the work per business event does not
+ * grow with the number of dashboards open. Subscribes, replays and
+ * heartbeats go through the same queue, which keeps each stream in order.
+ * Each subscriber is written by its own virtual thread from a bounded
+ * outbox; one that falls a replay buffer behind is closed, so a stalled
+ * connection never holds up the others and can resume on reconnect.
+ *
+ * A client that reconnects with {@code Last-Event-ID} gets the events it
+ * missed. If they are no longer buffered, for instance after a restart, it
+ * gets a {@code reset} event and should reload the full dashboard.
+ */
+@Slf4j
+@Service
+public class DashboardStream {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int SUBSCRIBER_HEADROOM = 64;
+
+    private final PaymentLedger paymentLedger;
+    private final ReservationRepository reservationRepository;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutMillis;
+    private final int replaySize;
+    private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // owned by the broadcaster thread
+    private final ArrayDeque<Frame> replay = new ArrayDeque<>();
+    private long totalBookings;
+    private long completedBookings;
+    // ids keep growing across restarts, so an id from before one is always older than the buffer
+    private long nextId = System.currentTimeMillis() * 1000;
+    private volatile Thread broadcaster;
+
+    public DashboardStream(PaymentLedger paymentLedger,
+            ReservationRepository reservationRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.manager.dashboard.stream.timeout-ms:1800000}") long streamTimeoutMillis,
+            @Value("${app.manager.dashboard.stream.replay-size:1000}") int replaySize) {
+        this.paymentLedger = paymentLedger;
+        this.reservationRepository = reservationRepository;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.replaySize = Math.max(1, replaySize);
+    }
+
+    // lastEventId is the Last-Event-ID header of a reconnecting client, or null
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        Long resumeAfter = parseId(lastEventId);
+        if (!enqueue(() -> join(subscriber, resumeAfter))) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        boolean wasSuccess = event.oldStatus() == PaymentStatus.SUCCESS;
+        boolean isSuccess = event.newStatus() == PaymentStatus.SUCCESS;
+        boolean wasRefunded = event.oldStatus() == PaymentStatus.REFUNDED;
+        boolean isRefunded = event.newStatus() == PaymentStatus.REFUNDED;
+        String type;
+        if (isSuccess && !wasSuccess) {
+            type = "payment";
+        } else if (isRefunded && !wasRefunded) {
+            type = "refund";
+        } else if (wasSuccess || wasRefunded) {
+            // left SUCCESS or REFUNDED, or its amount was edited
+            type = "totals";
+        } else {
+            return;
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("paymentId", event.paymentId());
+        delta.put("packageId", event.packageId());
+        delta.put("amount", event.amount());
+        delta.put("status", event.newStatus());
+        enqueue(() -> publish(type, delta));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStatusChanged(ReservationStatusChangedEvent event) {
+        int bookings = (event.newStatus() != null ? 1 : 0) - (event.oldStatus() != null ? 1 : 0);
+        int completed = (completed(event.newStatus()) ? 1 : 0) - (completed(event.oldStatus()) ? 1 : 0);
+        if (bookings == 0 && completed == 0) {
+            return;
+        }
+        String type = event.oldStatus() == null ? "booking" : "totals";
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("reservationId", event.reservationId());
+        delta.put("packageId", event.packageId());
+        delta.put("status", event.newStatus());
+        enqueue(() -> {
+            totalBookings += bookings;
+            completedBookings += completed;
+            publish(type, delta);
+        });
+    }
+
+    @Scheduled(fixedRateString = "${app.manager.dashboard.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            enqueue(() -> broadcast(SseEmitter.event().comment("heartbeat").build()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        broadcaster = Thread.ofVirtual().name("dashboard-stream").start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = broadcaster;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private void run() {
+        try {
+            // same definitions as the dashboard's totalReservations and completedReservations
+            totalBookings = reservationRepository.totalReservations();
+            completedBookings = reservationRepository.completedReservations();
+        } catch (RuntimeException e) {
+            log.error("Could not load booking totals for the dashboard stream: {}", e.getMessage(), e);
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Dashboard stream task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean enqueue(Runnable task) {
+        if (!queue.offer(task)) {
+            // clients resync from the totals on the next event that gets through
+            log.warn("Dashboard stream queue is full, dropping an update");
+            return false;
+        }
+        return true;
+    }
+
+    private void join(Subscriber subscriber, Long resumeAfter) {
+        // resumable if nothing it missed has left the buffer and the id is from this run
+        long oldestResumable = replay.isEmpty() ? nextId - 1 : replay.peekFirst().id - 1;
+        if (resumeAfter != null && resumeAfter >= oldestResumable && resumeAfter < nextId) {
+            for (Frame frame : replay) {
+                if (frame.id > resumeAfter) {
+                    subscriber.offer(frame.event);
+                }
+            }
+        } else {
+            if (resumeAfter != null) {
+                subscriber.offer(SseEmitter.event().name("reset").data("reload").build());
+            }
+            subscriber.offer(frame(nextId - 1, "totals", Map.of()).event);
+        }
+        subscribers.add(subscriber);
+        subscriber.start();
+    }
+
+    private void publish(String type, Map<String, Object> delta) {
+        Frame frame = frame(nextId++, type, delta);
+        replay.addLast(frame);
+        if (replay.size() > replaySize) {
+            replay.removeFirst();
+        }
+        broadcast(frame.event);
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(event)) {
+                // it reconnects with its Last-Event-ID and resumes from the replay buffer if it still can
+                log.debug("Dashboard stream subscriber fell behind, closing it");
+                subscriber.close();
+            }
+        }
+    }
+
+    private Frame frame(long id, String type, Map<String, Object> delta) {
+        Map<String, Object> data = new LinkedHashMap<>(delta);
+        data.put("totals", new DashboardTotalsDTO(paymentLedger.amount(PaymentStatus.SUCCESS),
+                paymentLedger.amount(PaymentStatus.REFUNDED), totalBookings, completedBookings));
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Dashboard event could not be serialized", e);
+        }
+        return new Frame(id, SseEmitter.event()
+                .id(Long.toString(id))
+                .name(type)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build());
+    }
+
+    private static boolean completed(ReservationStatus status) {
+        return status == ReservationStatus.COMPLETED || status == ReservationStatus.REFUNDED;
+    }
+
+    private static Long parseId(String id) {
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private record Frame(long id, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+    }
+
+    // Sends to one client on its own thread, so a stalled connection only blocks itself
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        // a whole replay always fits, plus room for what arrives while it is written
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> outbox =
+                new ArrayBlockingQueue<>(replaySize + SUBSCRIBER_HEADROOM);
+        private volatile boolean closed;
+        private volatile Thread writer;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            return !closed && outbox.offer(event);
+        }
+
+        private void start() {
+            writer = Thread.ofVirtual().name("dashboard-stream-subscriber").start(this::write);
+            if (closed) {
+                writer.interrupt();
+            }
+        }
+
+        private void write() {
+            try {
+                while (!closed) {
+                    emitter.send(outbox.take());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away
+                closed = true;
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } catch (InterruptedException e) {
+                // closed while waiting for the next event
+            }
+            subscribers.remove(this);
+            emitter.complete();
+        }
+
+        // The emitter is completed by the writer: its methods are synchronized, so completing it here would wait
+        // behind a send to a stalled client
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            Thread thread = writer;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
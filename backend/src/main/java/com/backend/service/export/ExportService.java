@@ -0,0 +1,218 @@
+package com.backend.service.export;
+
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.entity.enums.ReservationStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-table exports that never hold more than one row in memory. Rows are
+ * read from a forward-only JDBC cursor with {@code app.export.fetch-size}
+ * and written straight to the response as NDJSON or CSV. When the client
+ * goes away the next write fails, the statement is cancelled and the cursor
+ * closed, so an abandoned export stops costing the database anything.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter valueWriter;
+    private final int fetchSize;
+
+    public ExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // flushing is done per batch of rows, not per value
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // Wraps an export as a file download named like payments-2025-01-31.csv
+    public static ResponseEntity<StreamingResponseBody> download(String name, ExportFormat format,
+            StreamingResponseBody body) {
+        String filename = name + "-" + LocalDate.now() + "." + format.extension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    public StreamingResponseBody payments(ExportFormat format, LocalDateTime from, LocalDateTime to, Long userId,
+            Long packageId, PaymentStatus status) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        StringBuilder sql = new StringBuilder("""
+                SELECT paymentID, userID, packageID, amount, paymentDate, status, method,
+                       created_at AS createdAt, updated_at AS updatedAt
+                FROM Payment
+                WHERE 1 = 1
+                """);
+        List<Object> params = new ArrayList<>();
+        filter(sql, params, "paymentDate >= ?", from);
+        filter(sql, params, "paymentDate <= ?", to);
+        filter(sql, params, "userID = ?", userId);
+        filter(sql, params, "packageID = ?", packageId);
+        filter(sql, params, "status = ?", status != null ? status.name() : null);
+        sql.append(" ORDER BY paymentDate, paymentID");
+        return out -> stream(sql.toString(), params.toArray(), format, out);
+    }
+
+    public StreamingResponseBody reservations(ExportFormat format, LocalDate from, LocalDate to, Long userId,
+            Long packageId, ReservationStatus status) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        StringBuilder sql = new StringBuilder("""
+                SELECT reservationID, userID, packageID, guideID, paymentID, status, startDate, endDate, createdAt
+                FROM Reservation
+                WHERE 1 = 1
+                """);
+        List<Object> params = new ArrayList<>();
+        filter(sql, params, "startDate >= ?", from);
+        filter(sql, params, "startDate <= ?", to);
+        filter(sql, params, "userID = ?", userId);
+        filter(sql, params, "packageID = ?", packageId);
+        filter(sql, params, "status = ?", status != null ? status.name() : null);
+        sql.append(" ORDER BY reservationID");
+        return out -> stream(sql.toString(), params.toArray(), format, out);
+    }
+
+    private static void filter(StringBuilder sql, List<Object> params, String predicate, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(predicate);
+            params.add(value);
+        }
+    }
+
+    private void stream(String sql, Object[] params, ExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try {
+            Long rows = jdbcTemplate.execute(sql, (PreparedStatement ps) -> {
+                ps.setFetchSize(fetchSize);
+                ps.setFetchDirection(ResultSet.FETCH_FORWARD);
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    try {
+                        return format == ExportFormat.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+                    } catch (IOException e) {
+                        // client disconnected: cancel while rs is still open, or closing it drains the cursor first
+                        ps.cancel();
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            log.info("Exported {} rows as {} in {} ms", rows, format, System.currentTimeMillis() - start);
+        } catch (UncheckedIOException e) {
+            log.info("Export cancelled by client after {} ms: {}", System.currentTimeMillis() - start,
+                    e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        String[] columns = labels(rs.getMetaData());
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            while (rs.next()) {
+                json.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    json.writeFieldName(columns[i]);
+                    valueWriter.writeValue(json, value(rs, i + 1));
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++rows % fetchSize == 0) {
+                    json.flush();
+                }
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        String[] columns = labels(rs.getMetaData());
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+        while (rs.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = value(rs, i + 1);
+                if (value != null) {
+                    writer.write(csv(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+            if (++rows % fetchSize == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String[] labels(ResultSetMetaData meta) throws SQLException {
+        String[] labels = new String[meta.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return value;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
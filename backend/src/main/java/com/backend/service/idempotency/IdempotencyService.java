@@ -0,0 +1,323 @@
+package com.backend.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates POST requests that carry an {@code Idempotency-Key} header.
+ * The first request with a key runs and its successful response is kept;
+ * retries with the same key get that response back without running the
+ * service again. Keys live in a bounded in-memory map (oldest evicted first)
+ * backed by the IdempotencyKey table, which also stops two instances from
+ * running the same key at once. Entries expire after
+ * {@code app.idempotency.ttl-hours}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long waitMillis;
+    private final long leaseMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> completedOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${app.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${app.idempotency.wait-ms:10000}") long waitMillis,
+            @Value("${app.idempotency.lease-ms:300000}") long leaseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.maxEntries = maxEntries;
+        this.waitMillis = waitMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    // Runs the action once per key; without a key it just runs the action. request is everything that shapes the
+    // outcome (body and query parameters), so reusing a key with any of them changed is rejected.
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+        // hashed so a long scope or caller name cannot overflow the table's key column
+        String storeKey = sha256((scope + "|" + caller() + "|" + key).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = fingerprint(request);
+
+        while (true) {
+            Entry mine = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(storeKey, mine);
+            if (existing == null) {
+                return runAsOwner(storeKey, mine, action);
+            }
+            if (existing.isExpired()) {
+                entries.remove(storeKey, existing);
+                continue;
+            }
+            requireSameRequest(existing.fingerprint, fingerprint);
+            StoredResponse stored = existing.await(waitMillis);
+            if (stored != null) {
+                return replay(stored);
+            }
+            // the first request failed, so this retry gets to run
+        }
+    }
+
+    private ResponseEntity<?> runAsOwner(String storeKey, Entry mine, Supplier<ResponseEntity<?>> action) {
+        StoredResponse durable;
+        try {
+            durable = claimDurable(storeKey, mine.fingerprint);
+        } catch (RuntimeException e) {
+            entries.remove(storeKey, mine);
+            mine.result.complete(null);
+            throw e;
+        }
+        if (durable != null) {
+            complete(storeKey, mine, durable);
+            return replay(durable);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            abandon(storeKey, mine);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            abandon(storeKey, mine);
+            return response;
+        }
+
+        StoredResponse stored;
+        try {
+            String body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+            stored = new StoredResponse(response.getStatusCode().value(), body);
+        } catch (JsonProcessingException e) {
+            log.warn("Response for idempotency key {} could not be stored: {}", storeKey, e.getMessage());
+            abandon(storeKey, mine);
+            return response;
+        }
+        try {
+            jdbcTemplate.update("""
+                    UPDATE IdempotencyKey SET status = 'COMPLETED', responseStatus = ?, responseBody = ?, expiresAt = ?
+                    WHERE idempotencyKey = ?
+                    """, stored.status(), stored.body(), LocalDateTime.now().plusNanos(ttlMillis * 1_000_000), storeKey);
+        } catch (Exception e) {
+            // the in-memory copy still covers retries against this instance
+            log.warn("Failed to persist idempotency key {}: {}", storeKey, e.getMessage());
+        }
+        complete(storeKey, mine, stored);
+        return response;
+    }
+
+    // Inserts an IN_PROGRESS row for the key, or returns the response already stored for it
+    private StoredResponse claimDurable(String storeKey, String fingerprint) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update("""
+                        INSERT INTO IdempotencyKey (idempotencyKey, fingerprint, status, created_at, expiresAt)
+                        VALUES (?, ?, 'IN_PROGRESS', ?, ?)
+                        """, storeKey, fingerprint, now, now.plusNanos(leaseMillis * 1_000_000));
+                return null;
+            } catch (DuplicateKeyException e) {
+                List<StoredRow> rows = jdbcTemplate.query("""
+                        SELECT fingerprint, status, responseStatus, responseBody, expiresAt
+                        FROM IdempotencyKey WHERE idempotencyKey = ?
+                        """, (rs, i) -> new StoredRow(
+                        rs.getString("fingerprint"),
+                        rs.getString("status"),
+                        rs.getInt("responseStatus"),
+                        rs.getString("responseBody"),
+                        rs.getTimestamp("expiresAt").toLocalDateTime()), storeKey);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                StoredRow row = rows.get(0);
+                if (row.expiresAt().isBefore(now)) {
+                    // expired result or an in-progress claim whose owner died
+                    jdbcTemplate.update("DELETE FROM IdempotencyKey WHERE idempotencyKey = ? AND expiresAt < ?",
+                            storeKey, now);
+                    continue;
+                }
+                requireSameRequest(row.fingerprint(), fingerprint);
+                if ("COMPLETED".equals(row.status())) {
+                    return new StoredResponse(row.responseStatus(), row.responseBody());
+                }
+                throw inProgress();
+            }
+        }
+        throw inProgress();
+    }
+
+    private void abandon(String storeKey, Entry mine) {
+        entries.remove(storeKey, mine);
+        mine.result.complete(null);
+        try {
+            jdbcTemplate.update("DELETE FROM IdempotencyKey WHERE idempotencyKey = ? AND status = 'IN_PROGRESS'",
+                    storeKey);
+        } catch (Exception e) {
+            log.warn("Failed to release idempotency key {}: {}", storeKey, e.getMessage());
+        }
+    }
+
+    private void complete(String storeKey, Entry mine, StoredResponse stored) {
+        mine.expiresAt = System.currentTimeMillis() + ttlMillis;
+        mine.result.complete(stored);
+        completedOrder.add(storeKey);
+        while (entries.size() > maxEntries) {
+            String oldest = completedOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            Entry evicted = entries.get(oldest);
+            if (evicted != null && evicted.result.isDone()) {
+                // still answered from the table after eviction
+                entries.remove(oldest, evicted);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        // completion order is expiry order since every entry gets the same TTL
+        String head;
+        while ((head = completedOrder.peek()) != null) {
+            Entry entry = entries.get(head);
+            if (entry != null && !entry.isExpired()) {
+                break;
+            }
+            completedOrder.poll();
+            if (entry != null) {
+                entries.remove(head, entry);
+            }
+        }
+        try {
+            int deleted = jdbcTemplate.update("DELETE TOP (1000) FROM IdempotencyKey WHERE expiresAt < ?",
+                    LocalDateTime.now());
+            if (deleted > 0) {
+                log.debug("Purged {} expired idempotency keys", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Idempotency key purge failed: {}", e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private static void requireSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used with a different request");
+        }
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed");
+    }
+
+    private static String caller() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonymous";
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            return sha256(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record StoredResponse(int status, String body) {
+    }
+
+    private record StoredRow(String fingerprint, String status, int responseStatus, String responseBody,
+            LocalDateTime expiresAt) {
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        // null when the owning request failed
+        private StoredResponse await(long waitMillis) {
+            try {
+                return result.get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw inProgress();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw inProgress();
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.backend.service.inventory;
+
+import com.backend.dto.availability.CalendarAvailabilityDTO;
+import com.backend.dto.availability.DayAvailabilityDTO;
+import com.backend.entity.Packages;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Day-level seat calendar per package. Every seat-holding reservation adds one
+ * seat to each day of its startDate..endDate range, so overlapping trips
+ * compete for {@code Packages.dailyCapacity} while non-overlapping ones do not.
+ * Packages without a daily capacity are not limited per day; only those are
+ * held to a package-wide total by {@link SeatInventory}.
+ */
+@Slf4j
+@Service
+public class CapacityCalendar {
+
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, PackageDays> calendars = new ConcurrentHashMap<>();
+
+    public CapacityCalendar(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean canBook(Long packageId, LocalDate from, LocalDate to, int seats) {
+        Integer remaining = minRemaining(packageId, from, to);
+        return remaining == null || remaining >= seats;
+    }
+
+    // null when the package has no daily capacity
+    public Integer minRemaining(Long packageId, LocalDate from, LocalDate to) {
+        PackageDays days = calendars.get(packageId);
+        if (days == null || days.dailyCapacity == null) {
+            return null;
+        }
+        synchronized (days) {
+            return Math.max(0, days.dailyCapacity - days.booked.max(dayOf(from), dayOf(to)));
+        }
+    }
+
+    // Seats left on the least booked day of the range; null when the package has no daily capacity
+    public Integer maxRemaining(Long packageId, LocalDate from, LocalDate to) {
+        PackageDays days = calendars.get(packageId);
+        if (days == null || days.dailyCapacity == null) {
+            return null;
+        }
+        synchronized (days) {
+            return Math.max(0, days.dailyCapacity - days.booked.min(dayOf(from), dayOf(to)));
+        }
+    }
+
+    public Integer dailyCapacity(Long packageId) {
+        PackageDays days = calendars.get(packageId);
+        return days != null ? days.dailyCapacity : null;
+    }
+
+    public CalendarAvailabilityDTO availability(Long packageId, LocalDate from, LocalDate to, int seats) {
+        validate(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        PackageDays days = calendars.get(packageId);
+        if (days == null) {
+            throw new EntityNotFoundException("Package not found: " + packageId);
+        }
+
+        Integer capacity = days.dailyCapacity;
+        List<DayAvailabilityDTO> perDay = new ArrayList<>();
+        Integer minRemaining;
+        synchronized (days) {
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                int booked = days.booked.max(dayOf(d), dayOf(d));
+                perDay.add(new DayAvailabilityDTO(d, booked, capacity != null ? Math.max(0, capacity - booked) : null));
+            }
+            minRemaining = capacity != null ? Math.max(0, capacity - days.booked.max(dayOf(from), dayOf(to))) : null;
+        }
+        boolean canBook = minRemaining == null || minRemaining >= seats;
+        return new CalendarAvailabilityDTO(packageId, from, to, capacity, minRemaining, seats, canBook, perDay);
+    }
+
+    public void updateCapacity(Long packageId, Integer dailyCapacity) {
+        calendars.computeIfAbsent(packageId, id -> new PackageDays(dailyCapacity)).dailyCapacity = dailyCapacity;
+    }
+
+    public void remove(Long packageId) {
+        calendars.remove(packageId);
+    }
+
+    // Books seats on every day of the range; handed back if the transaction rolls back
+    public void book(Packages pkg, LocalDate from, LocalDate to, int seats) {
+        validate(from, to);
+        PackageDays days = calendars.computeIfAbsent(pkg.getPackageID(), id -> new PackageDays(pkg.getDailyCapacity()));
+        int fromDay = dayOf(from);
+        int toDay = dayOf(to);
+        synchronized (days) {
+            if (days.dailyCapacity != null && days.booked.max(fromDay, toDay) + seats > days.dailyCapacity) {
+                throw new SoldOutException("Not enough seats between " + from + " and " + to);
+            }
+            days.booked.add(fromDay, toDay, seats);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(pkg.getPackageID(), from, to, seats);
+                    }
+                }
+            });
+        }
+    }
+
+    // Moves one booked seat from one date range to another, e.g. when a cancelled seat goes to a waitlisted
+    // tourist. Returns false, changing nothing, if the new range has no room even with the old one freed.
+    public boolean move(Packages pkg, LocalDate oldFrom, LocalDate oldTo, LocalDate newFrom, LocalDate newTo) {
+        validate(newFrom, newTo);
+        PackageDays days = calendars.computeIfAbsent(pkg.getPackageID(), id -> new PackageDays(pkg.getDailyCapacity()));
+        boolean hadOld = oldFrom != null && oldTo != null && !oldTo.isBefore(oldFrom);
+        synchronized (days) {
+            if (hadOld) {
+                days.booked.add(dayOf(oldFrom), dayOf(oldTo), -1);
+            }
+            if (days.dailyCapacity != null && days.booked.max(dayOf(newFrom), dayOf(newTo)) + 1 > days.dailyCapacity) {
+                if (hadOld) {
+                    days.booked.add(dayOf(oldFrom), dayOf(oldTo), 1);
+                }
+                return false;
+            }
+            days.booked.add(dayOf(newFrom), dayOf(newTo), 1);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        synchronized (days) {
+                            days.booked.add(dayOf(newFrom), dayOf(newTo), -1);
+                            if (hadOld) {
+                                days.booked.add(dayOf(oldFrom), dayOf(oldTo), 1);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    public void releaseAfterCommit(Long packageId, LocalDate from, LocalDate to, int seats) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(packageId, from, to, seats);
+                }
+            });
+        } else {
+            release(packageId, from, to, seats);
+        }
+    }
+
+    private void release(Long packageId, LocalDate from, LocalDate to, int seats) {
+        PackageDays days = calendars.get(packageId);
+        if (days == null || from == null || to == null || to.isBefore(from)) {
+            return;
+        }
+        synchronized (days) {
+            days.booked.add(dayOf(from), dayOf(to), -seats);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            jdbcTemplate.query("SELECT packageID, dailyCapacity FROM Packages", rs -> {
+                Number capacity = (Number) rs.getObject("dailyCapacity");
+                updateCapacity(rs.getLong("packageID"), capacity != null ? capacity.intValue() : null);
+            });
+            jdbcTemplate.query("""
+                    SELECT packageID, startDate, endDate
+                    FROM Reservation
+                    WHERE status IN ('PENDING','CONFIRMED','COMPLETED')
+                      AND startDate IS NOT NULL AND endDate >= startDate
+                    """, rs -> {
+                PackageDays days = calendars.computeIfAbsent(rs.getLong("packageID"), id -> new PackageDays(null));
+                Date start = rs.getDate("startDate");
+                Date end = rs.getDate("endDate");
+                synchronized (days) {
+                    days.booked.add(dayOf(start.toLocalDate()), dayOf(end.toLocalDate()), 1);
+                }
+            });
+            log.info("Capacity calendar rebuilt for {} packages", calendars.size());
+        } catch (Exception e) {
+            log.error("Capacity calendar rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void validate(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        if (from.toEpochDay() < 0 || to.toEpochDay() >= DaySegmentTree.SIZE) {
+            throw new IllegalArgumentException("Dates are outside the bookable range");
+        }
+    }
+
+    private static int dayOf(LocalDate date) {
+        return (int) Math.min(Math.max(date.toEpochDay(), 0), DaySegmentTree.SIZE - 1);
+    }
+
+    private static final class PackageDays {
+        private volatile Integer dailyCapacity;
+        private final DaySegmentTree booked = new DaySegmentTree();
+
+        private PackageDays(Integer dailyCapacity) {
+            this.dailyCapacity = dailyCapacity;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.backend.service.inventory;
+
+/**
+ * Sparse segment tree over epoch days supporting range add and range max and
+ * min in O(log n). Nodes are only allocated for ranges that have been booked; the
+ * pending add of a node is kept on the node itself instead of being pushed down.
+ */
+class DaySegmentTree {
+
+    // epoch days 0..2^17-1, i.e. 1970 to 2328
+    static final int SIZE = 1 << 17;
+
+    private final Node root = new Node();
+
+    void add(int fromDay, int toDay, int delta) {
+        add(root, 0, SIZE - 1, fromDay, toDay, delta);
+    }
+
+    int max(int fromDay, int toDay) {
+        return max(root, 0, SIZE - 1, fromDay, toDay);
+    }
+
+    int min(int fromDay, int toDay) {
+        return min(root, 0, SIZE - 1, fromDay, toDay);
+    }
+
+    private void add(Node node, int lo, int hi, int l, int r, int delta) {
+        if (l <= lo && hi <= r) {
+            node.max += delta;
+            node.min += delta;
+            node.pending += delta;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (l <= mid) {
+            if (node.left == null) {
+                node.left = new Node();
+            }
+            add(node.left, lo, mid, l, r, delta);
+        }
+        if (r > mid) {
+            if (node.right == null) {
+                node.right = new Node();
+            }
+            add(node.right, mid + 1, hi, l, r, delta);
+        }
+        node.max = node.pending + Math.max(maxOf(node.left), maxOf(node.right));
+        node.min = node.pending + Math.min(minOf(node.left), minOf(node.right));
+    }
+
+    private int max(Node node, int lo, int hi, int l, int r) {
+        if (node == null) {
+            return 0;
+        }
+        if (l <= lo && hi <= r) {
+            return node.max;
+        }
+        int mid = (lo + hi) >>> 1;
+        int best = Integer.MIN_VALUE;
+        if (l <= mid) {
+            best = max(node.left, lo, mid, l, r);
+        }
+        if (r > mid) {
+            best = Math.max(best, max(node.right, mid + 1, hi, l, r));
+        }
+        return best + node.pending;
+    }
+
+    private int min(Node node, int lo, int hi, int l, int r) {
+        if (node == null) {
+            return 0;
+        }
+        if (l <= lo && hi <= r) {
+            return node.min;
+        }
+        int mid = (lo + hi) >>> 1;
+        int least = Integer.MAX_VALUE;
+        if (l <= mid) {
+            least = min(node.left, lo, mid, l, r);
+        }
+        if (r > mid) {
+            least = Math.min(least, min(node.right, mid + 1, hi, l, r));
+        }
+        return least + node.pending;
+    }
+
+    private static int maxOf(Node node) {
+        return node == null ? 0 : node.max;
+    }
+
+    private static int minOf(Node node) {
+        return node == null ? 0 : node.min;
+    }
+
+    private static final class Node {
+        int max;
+        int min;
+        int pending;
+        Node left;
+        Node right;
+    }
+}
@@ -0,0 +1,208 @@
+package com.backend.service.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (4 levels of 64 slots). Scheduling and cancelling
+ * are O(1) and lock-free for callers; a single worker thread owns the buckets,
+ * advances one tick at a time and cascades entries from the coarser levels.
+ * Expired payloads are handed to {@code onExpire} on the given executor.
+ */
+@Slf4j
+public class HierarchicalTimingWheel<T> implements AutoCloseable {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Consumer<T> onExpire;
+    private final Executor expiryExecutor;
+    private final ScheduledExecutorService worker;
+
+    @SuppressWarnings("unchecked")
+    private final Timeout[][] heads = (Timeout[][]) new HierarchicalTimingWheel.Timeout[LEVELS][WHEEL_SIZE];
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(String name, long tickMillis, Consumer<T> onExpire, Executor expiryExecutor) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+        this.onExpire = onExpire;
+        this.expiryExecutor = expiryExecutor;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+        this.worker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Timeout schedule(T payload, long delayMillis) {
+        long elapsed = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        long deadlineTick = (elapsed + tickNanos - 1) / tickNanos;
+        Timeout timeout = new Timeout(payload, deadlineTick);
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+
+    private void advance() {
+        try {
+            drainAdds();
+            drainCancels();
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick <= targetTick) {
+                processTick();
+                currentTick++;
+            }
+        } catch (Exception e) {
+            log.error("Timing wheel tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void drainAdds() {
+        Timeout t;
+        while ((t = pendingAdds.poll()) != null) {
+            if (t.state.get() == PENDING) {
+                place(t);
+            }
+        }
+    }
+
+    private void drainCancels() {
+        Timeout t;
+        while ((t = pendingCancels.poll()) != null) {
+            if (t.level >= 0) {
+                unlink(t);
+            }
+        }
+    }
+
+    private void processTick() {
+        int index = (int) (currentTick & WHEEL_MASK);
+        if (index == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                cascade(level, slot);
+                if (slot != 0) {
+                    break;
+                }
+            }
+        }
+
+        Timeout t = heads[0][index];
+        heads[0][index] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.level = -1;
+            if (t.state.compareAndSet(PENDING, EXPIRED)) {
+                T payload = t.payload;
+                expiryExecutor.execute(() -> onExpire.accept(payload));
+            }
+            t = next;
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timeout t = heads[level][slot];
+        heads[level][slot] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.level = -1;
+            if (t.state.get() == PENDING) {
+                place(t);
+            }
+            t = next;
+        }
+    }
+
+    private void place(Timeout t) {
+        long deadline = t.deadlineTick;
+        long delta = deadline - currentTick;
+        if (delta < 0) {
+            deadline = currentTick;
+            delta = 0;
+        } else if (delta > MAX_DELTA) {
+            deadline = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+        int level = 0;
+        while (delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        t.level = level;
+        t.slot = slot;
+        t.next = heads[level][slot];
+        if (t.next != null) {
+            t.next.prev = t;
+        }
+        heads[level][slot] = t;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            heads[t.level][t.slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = t.next = null;
+        t.level = -1;
+    }
+
+    public final class Timeout {
+        private final T payload;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // owned by the worker thread
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendingCancels.add(this);
+                return true;
+            }
+            return false;
+        }
+    }
+}
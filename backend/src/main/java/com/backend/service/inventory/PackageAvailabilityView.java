@@ -0,0 +1,133 @@
+package com.backend.service.inventory;
+
+import com.backend.dto.availability.PackageAvailabilityDTO;
+import com.backend.entity.Packages;
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.event.ReservationStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized per-package booking counts behind GET /api/availability.
+ * Counts are loaded once at startup and then moved by committed reservation
+ * status changes, so serving the endpoint costs O(packages) regardless of how
+ * many reservations exist.
+ */
+@Slf4j
+@Service
+public class PackageAvailabilityView {
+
+    private static final int HORIZON_DAYS = 365;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SeatInventory seatInventory;
+    private final CapacityCalendar capacityCalendar;
+    private final Map<Long, Counts> packages = new ConcurrentHashMap<>();
+
+    public PackageAvailabilityView(JdbcTemplate jdbcTemplate, SeatInventory seatInventory,
+            CapacityCalendar capacityCalendar) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seatInventory = seatInventory;
+        this.capacityCalendar = capacityCalendar;
+    }
+
+    public List<PackageAvailabilityDTO> getAvailability() {
+        return packages.entrySet().stream()
+                .filter(e -> e.getValue().title != null)
+                .map(e -> toDTO(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparing(PackageAvailabilityDTO::packageID))
+                .toList();
+    }
+
+    public void upsertPackage(Packages pkg) {
+        packages.computeIfAbsent(pkg.getPackageID(), id -> new Counts()).title = pkg.getTitle();
+    }
+
+    public void removePackage(Long packageId) {
+        packages.remove(packageId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(ReservationStatusChangedEvent event) {
+        Counts counts = packages.computeIfAbsent(event.packageId(), id -> new Counts());
+        counts.adjust(event.oldStatus(), -1);
+        counts.adjust(event.newStatus(), 1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            jdbcTemplate.query("SELECT packageID, title FROM Packages", rs -> {
+                packages.computeIfAbsent(rs.getLong("packageID"), id -> new Counts()).title = rs.getString("title");
+            });
+            jdbcTemplate.query("""
+                    SELECT packageID, status, COUNT(*) AS cnt
+                    FROM Reservation
+                    WHERE status IN ('PENDING','CONFIRMED')
+                    GROUP BY packageID, status
+                    """, rs -> {
+                Counts counts = packages.computeIfAbsent(rs.getLong("packageID"), id -> new Counts());
+                ReservationStatus status = ReservationStatus.valueOf(rs.getString("status"));
+                (status == ReservationStatus.CONFIRMED ? counts.confirmed : counts.pending).set(rs.getLong("cnt"));
+            });
+            log.info("Availability view rebuilt for {} packages", packages.size());
+        } catch (Exception e) {
+            log.error("Availability view rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private PackageAvailabilityDTO toDTO(Long packageId, Counts counts) {
+        Integer dailyCapacity = capacityCalendar.dailyCapacity(packageId);
+        if (dailyCapacity != null) {
+            return toDailyDTO(packageId, counts, dailyCapacity);
+        }
+        Integer capacity = seatInventory.capacity(packageId);
+        Integer available = seatInventory.remaining(packageId);
+        String status = available != null && available <= 0 ? "Full" : "Available";
+        return new PackageAvailabilityDTO(packageId, counts.title, counts.confirmed.get(), counts.pending.get(),
+                capacity, available, status);
+    }
+
+    // Daily-capacity packages are limited per day, so available is the most seats any day in the horizon has left
+    private PackageAvailabilityDTO toDailyDTO(Long packageId, Counts counts, int dailyCapacity) {
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(HORIZON_DAYS - 1);
+        Integer best = capacityCalendar.maxRemaining(packageId, today, last);
+        Integer worst = capacityCalendar.minRemaining(packageId, today, last);
+        String status;
+        if (best != null && best <= 0) {
+            status = "Full";
+        } else if (worst != null && worst <= 0) {
+            status = "Some days full";
+        } else {
+            status = "Available";
+        }
+        return new PackageAvailabilityDTO(packageId, counts.title, counts.confirmed.get(), counts.pending.get(),
+                dailyCapacity, best, status);
+    }
+
+    private static final class Counts {
+        private volatile String title;
+        private final AtomicLong confirmed = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+
+        private void adjust(ReservationStatus status, int delta) {
+            if (status == ReservationStatus.CONFIRMED) {
+                confirmed.addAndGet(delta);
+            } else if (status == ReservationStatus.PENDING) {
+                pending.addAndGet(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.backend.service.inventory;
+
+import com.backend.entity.Reservation;
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.event.ReservationStatusChangedEvent;
+import com.backend.repository.ReservationRepository;
+import com.backend.service.waitlist.WaitlistService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Expires PENDING seat holds. Each hold gets one timer on a
+ * {@link HierarchicalTimingWheel}; when it fires the reservation is cancelled
+ * and its seat returned to {@link SeatInventory}.
+ */
+@Slf4j
+@Service
+public class SeatHoldService {
+
+    private final ReservationRepository reservationRepository;
+    private final SeatInventory seatInventory;
+    private final CapacityCalendar capacityCalendar;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final Map<Long, HierarchicalTimingWheel<Long>.Timeout> timers = new ConcurrentHashMap<>();
+
+    public SeatHoldService(ReservationRepository reservationRepository,
+            SeatInventory seatInventory,
+            CapacityCalendar capacityCalendar,
+            WaitlistService waitlistService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.reservation.hold-tick-ms:1000}") long tickMillis) {
+        this.reservationRepository = reservationRepository;
+        this.seatInventory = seatInventory;
+        this.capacityCalendar = capacityCalendar;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HierarchicalTimingWheel<>("seat-hold-wheel", tickMillis, this::expire,
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // Starts the hold timer once the reservation is committed
+    public void scheduleAfterCommit(Long reservationId, LocalDateTime expiresAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(reservationId, expiresAt);
+                }
+            });
+        } else {
+            schedule(reservationId, expiresAt);
+        }
+    }
+
+    // Disarms the hold timer once the status change is committed
+    public void cancelAfterCommit(Long reservationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cancel(reservationId);
+                }
+            });
+        } else {
+            cancel(reservationId);
+        }
+    }
+
+    private void cancel(Long reservationId) {
+        var timer = timers.remove(reservationId);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    private void schedule(Long reservationId, LocalDateTime expiresAt) {
+        long delay = Duration.between(LocalDateTime.now(), expiresAt).toMillis();
+        var previous = timers.put(reservationId, wheel.schedule(reservationId, delay));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void expire(Long reservationId) {
+        timers.remove(reservationId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+                if (reservation == null
+                        || reservation.getStatus() != ReservationStatus.PENDING
+                        || reservation.getHoldExpiresAt() == null) {
+                    return;
+                }
+                if (reservation.getHoldExpiresAt().isAfter(LocalDateTime.now())) {
+                    // timer fired ahead of the wall clock, re-arm for the remainder
+                    schedule(reservationId, reservation.getHoldExpiresAt());
+                    return;
+                }
+                reservation.setStatus(ReservationStatus.CANCELLED);
+                reservation.setHoldExpiresAt(null);
+                reservationRepository.save(reservation);
+                Long packageId = reservation.getPackages().getPackageID();
+                if (waitlistService.handOff(reservation) == null) {
+                    seatInventory.releaseAfterCommit(packageId, 1);
+                    capacityCalendar.releaseAfterCommit(packageId, reservation.getStartDate(),
+                            reservation.getEndDate(), 1);
+                }
+                eventPublisher.publishEvent(new ReservationStatusChangedEvent(
+                        reservationId, packageId, ReservationStatus.PENDING, ReservationStatus.CANCELLED));
+            });
+        } catch (Exception e) {
+            log.error("Failed to expire hold on reservation {}: {}", reservationId, e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        try {
+            var holds = reservationRepository.findActiveHolds();
+            holds.forEach(row -> schedule((Long) row[0], (LocalDateTime) row[1]));
+            log.info("Restored {} seat hold timers", holds.size());
+        } catch (Exception e) {
+            log.error("Failed to restore seat hold timers: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+    }
+}
@@ -0,0 +1,232 @@
+package com.backend.service.inventory;
+
+import com.backend.entity.Packages;
+import com.backend.entity.enums.ReservationStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory seat inventory per package. Bookings reserve seats against
+ * {@link StripedSeatCounter}s without touching the Packages row; the
+ * remaining counts are written back to {@code Packages.available} in batches.
+ * On startup the counters are rebuilt from the Reservation table.
+ *
+ * Packages with a {@code dailyCapacity} are not tracked: their trips are
+ * limited per day by {@link CapacityCalendar}, so trips that do not overlap
+ * never compete and finished trips stop counting once their days are past.
+ */
+@Slf4j
+@Service
+public class SeatInventory {
+
+    private static final String HELD_STATUSES = "'PENDING','CONFIRMED','COMPLETED'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int stripes;
+    private final Map<Long, StripedSeatCounter> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public SeatInventory(JdbcTemplate jdbcTemplate,
+            @Value("${app.inventory.stripes:0}") int stripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = stripes > 0 ? stripes : Math.min(16, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static boolean holdsSeat(ReservationStatus status) {
+        return status == ReservationStatus.PENDING
+                || status == ReservationStatus.CONFIRMED
+                || status == ReservationStatus.COMPLETED;
+    }
+
+    // Reserves seats for the current transaction; they are handed back if it rolls back
+    public void reserve(Packages pkg, int seats) {
+        StripedSeatCounter counter = counterFor(pkg);
+        if (counter == null) {
+            return;
+        }
+        if (!counter.tryReserve(seats)) {
+            throw new SoldOutException("Package is sold out: " + pkg.getPackageID());
+        }
+        dirty.add(pkg.getPackageID());
+
+        Long packageId = pkg.getPackageID();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(packageId, seats);
+                    }
+                }
+            });
+        }
+    }
+
+    public void release(Long packageId, int seats) {
+        StripedSeatCounter counter = counters.get(packageId);
+        if (counter == null) {
+            return;
+        }
+        counter.release(seats);
+        dirty.add(packageId);
+    }
+
+    // Releases seats only once the current transaction commits
+    public void releaseAfterCommit(Long packageId, int seats) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(packageId, seats);
+                }
+            });
+        } else {
+            release(packageId, seats);
+        }
+    }
+
+    public Integer remaining(Long packageId) {
+        StripedSeatCounter counter = counters.get(packageId);
+        return counter != null ? counter.remaining() : null;
+    }
+
+    public Integer capacity(Long packageId) {
+        StripedSeatCounter counter = counters.get(packageId);
+        return counter != null ? counter.capacity() : null;
+    }
+
+    public void register(Packages pkg) {
+        counterFor(pkg);
+    }
+
+    // Changes the total seats of a tracked package, keeping the seats already held
+    public void resize(Long packageId, int capacity) {
+        StripedSeatCounter counter = counters.get(packageId);
+        if (counter == null) {
+            return;
+        }
+        if (capacity < 0 || !counter.resize(capacity)) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is below the seats already held on package "
+                    + packageId);
+        }
+        dirty.add(packageId);
+    }
+
+    public void remove(Long packageId) {
+        counters.remove(packageId);
+        dirty.remove(packageId);
+    }
+
+    // A package that gains a daily capacity leaves the package-wide count to CapacityCalendar
+    public void refresh(Packages pkg) {
+        if (pkg.getDailyCapacity() != null) {
+            remove(pkg.getPackageID());
+        }
+    }
+
+    private StripedSeatCounter counterFor(Packages pkg) {
+        StripedSeatCounter counter = counters.get(pkg.getPackageID());
+        if (counter != null) {
+            return counter;
+        }
+        if (pkg.getAvailable() == null || pkg.getDailyCapacity() != null) {
+            // packages without a seat limit, or limited per day instead, are not tracked
+            return null;
+        }
+        int capacity = pkg.getCapacity() != null ? pkg.getCapacity() : pkg.getAvailable();
+        return counters.computeIfAbsent(pkg.getPackageID(),
+                id -> new StripedSeatCounter(capacity, pkg.getAvailable(), stripes));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                    SELECT p.packageID, p.available, p.capacity, p.dailyCapacity, COUNT(r.reservationID) AS held
+                    FROM Packages p
+                    LEFT JOIN Reservation r
+                        ON r.packageID = p.packageID
+                        AND r.status IN (%s)
+                    GROUP BY p.packageID, p.available, p.capacity, p.dailyCapacity
+                    """.formatted(HELD_STATUSES));
+
+            List<Object[]> capacityBackfill = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Long packageId = ((Number) row.get("packageID")).longValue();
+                Number available = (Number) row.get("available");
+                Number capacity = (Number) row.get("capacity");
+                int held = ((Number) row.get("held")).intValue();
+
+                if (available == null && capacity == null) {
+                    continue;
+                }
+                int total;
+                if (capacity != null) {
+                    total = capacity.intValue();
+                } else {
+                    // legacy rows only kept the remaining count
+                    total = available.intValue() + held;
+                    capacityBackfill.add(new Object[] { total, packageId });
+                }
+                if (row.get("dailyCapacity") != null) {
+                    // limited per day by CapacityCalendar
+                    continue;
+                }
+                int remaining = Math.max(0, total - held);
+                counters.put(packageId, new StripedSeatCounter(total, remaining, stripes));
+                if (available == null || available.intValue() != remaining) {
+                    dirty.add(packageId);
+                }
+            }
+
+            if (!capacityBackfill.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE Packages SET capacity = ? WHERE packageID = ?", capacityBackfill);
+            }
+            log.info("Seat inventory rebuilt for {} packages", counters.size());
+            flush();
+        } catch (Exception e) {
+            log.error("Seat inventory rebuild failed, counters will load lazily: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:500}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            dirty.remove(id);
+            StripedSeatCounter counter = counters.get(id);
+            if (counter != null) {
+                batch.add(new Object[] { counter.remaining(), id });
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE Packages SET available = ? WHERE packageID = ?", batch);
+        } catch (Exception e) {
+            dirty.addAll(ids);
+            log.warn("Seat inventory flush failed for {} packages: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
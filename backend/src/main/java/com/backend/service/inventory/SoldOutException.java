@@ -0,0 +1,9 @@
+package com.backend.service.inventory;
+
+// Thrown when a booking finds no seat left, so callers can offer the waitlist
+public class SoldOutException extends IllegalStateException {
+
+    public SoldOutException(String message) {
+        super(message);
+    }
+}
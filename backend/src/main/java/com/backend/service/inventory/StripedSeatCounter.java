@@ -0,0 +1,100 @@
+package com.backend.service.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remaining seats for one package spread over several CAS-updated stripes so
+ * that concurrent bookings on the same package do not contend on a single
+ * counter. Only when no single stripe can satisfy a request are the stripes
+ * drained and rebalanced under a lock.
+ */
+class StripedSeatCounter {
+
+    // 8 longs = 64 bytes, keeps every stripe on its own cache line
+    private static final int PAD = 8;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+    private final Object rebalanceLock = new Object();
+    private volatile int capacity;
+
+    StripedSeatCounter(int capacity, int remaining, int stripes) {
+        this.stripes = stripes;
+        this.capacity = capacity;
+        this.cells = new AtomicLongArray(stripes * PAD);
+        spread(Math.max(0, remaining));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+
+    int remaining() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return (int) sum;
+    }
+
+    boolean tryReserve(int seats) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int n = 0; n < stripes; n++) {
+            int idx = ((start + n) % stripes) * PAD;
+            long current;
+            while ((current = cells.get(idx)) >= seats) {
+                if (cells.compareAndSet(idx, current, current - seats)) {
+                    return true;
+                }
+            }
+        }
+        return reserveSlow(seats);
+    }
+
+    void release(int seats) {
+        int idx = ThreadLocalRandom.current().nextInt(stripes) * PAD;
+        cells.addAndGet(idx, seats);
+    }
+
+    // Drains every stripe, takes the seats out of the total and spreads the rest
+    // back. Releases that land while draining are kept because drain uses getAndSet.
+    private boolean reserveSlow(int seats) {
+        synchronized (rebalanceLock) {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.getAndSet(i * PAD, 0);
+            }
+            boolean granted = total >= seats;
+            spread(granted ? total - seats : total);
+            return granted;
+        }
+    }
+
+    // Changes the total and moves the remaining seats by the same amount; false if fewer than are held
+    boolean resize(int newCapacity) {
+        synchronized (rebalanceLock) {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.getAndSet(i * PAD, 0);
+            }
+            long held = capacity - total;
+            if (newCapacity < held) {
+                spread(total);
+                return false;
+            }
+            capacity = newCapacity;
+            spread(newCapacity - held);
+            return true;
+        }
+    }
+
+    private void spread(long total) {
+        long share = total / stripes;
+        long extra = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.addAndGet(i * PAD, share + (i < extra ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.backend.service.notification;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Local stand-in sink, used unless another channel is configured
+@Component
+@ConditionalOnProperty(name = "app.notifications.channel", havingValue = "console", matchIfMissing = true)
+public class ConsoleNotificationChannel implements NotificationChannel {
+
+    @Override
+    public void send(NotificationMessage message) {
+        System.out.println("=== Notification Sent ===");
+        System.out.println("To User ID: " + message.userId());
+        System.out.println("Reservation ID: " + message.reservationId());
+        System.out.println(message.message());
+        System.out.println("=========================");
+    }
+}
@@ -0,0 +1,11 @@
+package com.backend.service.notification;
+
+/**
+ * Delivery target for outbox notifications. Implementations throw to signal
+ * a failed attempt; the dispatcher retries with backoff and dead-letters the
+ * message after the configured number of attempts.
+ */
+public interface NotificationChannel {
+
+    void send(NotificationMessage message) throws Exception;
+}
@@ -0,0 +1,187 @@
+package com.backend.service.notification;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the NotificationOutbox table. Due rows are leased in batches, each
+ * message is sent on its own virtual thread, and the outcomes are written
+ * back with one batch per result kind. Failed messages are retried with
+ * exponential backoff and marked DEAD once they run out of attempts. A lease
+ * that is never settled (e.g. the process died mid-send) simply expires and
+ * the row is picked up again.
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationChannel channel;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMillis;
+    private final long sendTimeoutMillis;
+    private final long backoffMillis;
+
+    public NotificationDispatcher(JdbcTemplate jdbcTemplate,
+            NotificationChannel channel,
+            @Value("${app.notifications.batch-size:100}") int batchSize,
+            @Value("${app.notifications.max-attempts:5}") int maxAttempts,
+            @Value("${app.notifications.lease-ms:60000}") long leaseMillis,
+            @Value("${app.notifications.send-timeout-ms:10000}") long sendTimeoutMillis,
+            @Value("${app.notifications.backoff-ms:2000}") long backoffMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = leaseMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.backoffMillis = backoffMillis;
+    }
+
+    // Called after a transaction commits new outbox rows so they go out without waiting for the next poll
+    public void wake() {
+        executor.execute(this::drain);
+    }
+
+    // The poll only hands off: draining can block on slow sends and must not hold the shared scheduler thread
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval-ms:1000}")
+    public void poll() {
+        wake();
+    }
+
+    private void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<NotificationMessage> batch;
+            do {
+                batch = lease();
+                if (!batch.isEmpty()) {
+                    dispatch(batch);
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Notification dispatch failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private List<NotificationMessage> lease() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query("""
+                UPDATE TOP (?) NotificationOutbox
+                SET nextAttemptAt = ?
+                OUTPUT inserted.outboxID, inserted.userID, inserted.reservationID,
+                       inserted.type, inserted.message, inserted.attempts
+                WHERE status = 'PENDING' AND nextAttemptAt <= ?
+                """,
+                (rs, i) -> new NotificationMessage(
+                        rs.getLong("outboxID"),
+                        rs.getObject("userID", Long.class),
+                        rs.getObject("reservationID", Long.class),
+                        rs.getString("type"),
+                        rs.getString("message"),
+                        rs.getInt("attempts")),
+                batchSize, now.plusNanos(leaseMillis * 1_000_000), now);
+    }
+
+    private void dispatch(List<NotificationMessage> batch) {
+        List<Future<?>> sends = new ArrayList<>(batch.size());
+        for (NotificationMessage message : batch) {
+            sends.add(executor.submit(() -> {
+                channel.send(message);
+                return null;
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        List<String> errors = new ArrayList<>(batch.size());
+        for (Future<?> send : sends) {
+            errors.add(await(send, deadline));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> retry = new ArrayList<>();
+        List<Object[]> dead = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            NotificationMessage message = batch.get(i);
+            String error = errors.get(i);
+            if (error == null) {
+                sent.add(new Object[] { now, message.outboxId() });
+                continue;
+            }
+            int attempts = message.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.warn("Notification {} dead-lettered after {} attempts: {}", message.outboxId(), attempts, error);
+                dead.add(new Object[] { attempts, error, message.outboxId() });
+            } else {
+                long delay = backoffMillis << Math.min(attempts - 1, 16);
+                retry.add(new Object[] { attempts, error, now.plusNanos(delay * 1_000_000), message.outboxId() });
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE NotificationOutbox SET status = 'SENT', sentAt = ?, attempts = attempts + 1, lastError = NULL
+                    WHERE outboxID = ?
+                    """, sent);
+        }
+        if (!retry.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE NotificationOutbox SET attempts = ?, lastError = ?, nextAttemptAt = ?
+                    WHERE outboxID = ?
+                    """, retry);
+        }
+        if (!dead.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE NotificationOutbox SET status = 'DEAD', attempts = ?, lastError = ?
+                    WHERE outboxID = ?
+                    """, dead);
+        }
+    }
+
+    // null on success, otherwise the failure reason
+    private String await(Future<?> send, long deadline) {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (TimeoutException e) {
+            send.cancel(true);
+            return "Timed out after " + sendTimeoutMillis + " ms";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted";
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            String reason = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+            return reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
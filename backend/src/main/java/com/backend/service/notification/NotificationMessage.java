@@ -0,0 +1,10 @@
+package com.backend.service.notification;
+
+public record NotificationMessage(
+        Long outboxId,
+        Long userId,
+        Long reservationId,
+        String type,
+        String message,
+        int attempts) {
+}
@@ -0,0 +1,181 @@
+package com.backend.service.payment;
+
+import com.backend.entity.Reservation;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import com.backend.event.ReservationStatusChangedEvent;
+import com.backend.repository.ReservationRepository;
+import com.backend.service.inventory.CapacityCalendar;
+import com.backend.service.inventory.SeatHoldService;
+import com.backend.service.inventory.SeatInventory;
+import com.backend.service.waitlist.WaitlistService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fails PENDING payments older than {@code app.payments.expiry.pending-minutes}.
+ * Work is done in chunks of at most {@code chunk-size} rows, each one a single
+ * {@code UPDATE TOP (n) ... OUTPUT} in its own short transaction, so memory
+ * and lock time stay flat however many payments are stuck. PENDING
+ * reservations linked to an expired payment are cancelled in the same chunk
+ * and their seats handed to the waitlist or returned to inventory.
+ */
+@Slf4j
+@Service
+public class PaymentExpirySweeper {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationRepository reservationRepository;
+    private final SeatInventory seatInventory;
+    private final CapacityCalendar capacityCalendar;
+    private final SeatHoldService seatHoldService;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final int pendingMinutes;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final Counter expiredPayments;
+    private final Counter releasedReservations;
+    private final Timer sweepTimer;
+
+    public PaymentExpirySweeper(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ReservationRepository reservationRepository,
+            SeatInventory seatInventory,
+            CapacityCalendar capacityCalendar,
+            SeatHoldService seatHoldService,
+            WaitlistService waitlistService,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${app.payments.expiry.pending-minutes:30}") int pendingMinutes,
+            @Value("${app.payments.expiry.chunk-size:500}") int chunkSize,
+            @Value("${app.payments.expiry.max-chunks-per-run:200}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationRepository = reservationRepository;
+        this.seatInventory = seatInventory;
+        this.capacityCalendar = capacityCalendar;
+        this.seatHoldService = seatHoldService;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.pendingMinutes = pendingMinutes;
+        // each reservation lookup binds one parameter per payment, SQL Server allows 2100
+        this.chunkSize = Math.max(1, Math.min(chunkSize, 2000));
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.expiredPayments = meterRegistry.counter("payments.expiry.payments");
+        this.releasedReservations = meterRegistry.counter("payments.expiry.reservations_released");
+        this.sweepTimer = meterRegistry.timer("payments.expiry.sweep");
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.expiry.sweep-interval-ms:60000}")
+    public void sweepScheduled() {
+        try {
+            sweep(pendingMinutes);
+        } catch (Exception e) {
+            log.error("Payment expiry sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Returns the number of payments failed; 0 if another sweep is already running
+    public int sweep(int minutesOld) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int total = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(minutesOld);
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                Integer expired = transactionTemplate.execute(status -> expireChunk(cutoff));
+                total += expired;
+                if (expired < chunkSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("Expired {} pending payments older than {} minutes", total, minutesOld);
+            }
+            return total;
+        } finally {
+            sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    private int expireChunk(LocalDateTime cutoff) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ExpiredPayment> expired = jdbcTemplate.query("""
+                UPDATE TOP (?) Payment
+                SET status = 'FAILED', updated_at = ?
+                OUTPUT inserted.paymentID, inserted.packageID, inserted.amount, inserted.paymentDate, inserted.method
+                WHERE status = 'PENDING' AND paymentDate < ?
+                """,
+                (rs, i) -> new ExpiredPayment(rs.getLong("paymentID"), rs.getLong("packageID"),
+                        rs.getBigDecimal("amount"), rs.getTimestamp("paymentDate").toLocalDateTime(),
+                        rs.getString("method")),
+                chunkSize, now, cutoff);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> paymentIds = new ArrayList<>(expired.size());
+        for (ExpiredPayment payment : expired) {
+            paymentIds.add(payment.paymentId());
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(payment.paymentId(), payment.packageId(),
+                    payment.amount(), PaymentStatus.PENDING, PaymentStatus.FAILED, payment.paymentDate(),
+                    payment.method()));
+        }
+        releaseLinkedReservations(paymentIds);
+        expiredPayments.increment(expired.size());
+        return expired.size();
+    }
+
+    private void releaseLinkedReservations(List<Long> paymentIds) {
+        String placeholders = String.join(", ", Collections.nCopies(paymentIds.size(), "?"));
+        List<Long> reservationIds = jdbcTemplate.queryForList("""
+                UPDATE Reservation
+                SET status = 'CANCELLED', holdExpiresAt = NULL
+                OUTPUT inserted.reservationID
+                WHERE status = 'PENDING' AND paymentID IN (%s)
+                """.formatted(placeholders), Long.class, paymentIds.toArray());
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+
+        for (Reservation reservation : reservationRepository.findAllById(reservationIds)) {
+            Long packageId = reservation.getPackages().getPackageID();
+            if (waitlistService.handOff(reservation) == null) {
+                seatInventory.releaseAfterCommit(packageId, 1);
+                capacityCalendar.releaseAfterCommit(packageId, reservation.getStartDate(), reservation.getEndDate(), 1);
+            }
+            seatHoldService.cancelAfterCommit(reservation.getReservationID());
+            eventPublisher.publishEvent(new ReservationStatusChangedEvent(reservation.getReservationID(), packageId,
+                    ReservationStatus.PENDING, ReservationStatus.CANCELLED));
+        }
+        releasedReservations.increment(reservationIds.size());
+    }
+
+    private record ExpiredPayment(Long paymentId, Long packageId, BigDecimal amount, LocalDateTime paymentDate,
+            String method) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.backend.service.payment;
+
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running count and total amount of payments per status, so totals and
+ * dashboards never scan the Payment table. Amounts are kept exactly as minor
+ * units (the column's two decimals) in {@link LongAdder}s, which stripe
+ * contended updates across cells. Every committed create, update and delete
+ * arrives as a {@link PaymentStatusChangedEvent} and moves the payment from
+ * its old bucket to its new one.
+ *
+ * The ledger is loaded from the database on startup and reconciled
+ * periodically. A reconcile only corrects drift that is seen twice in a row
+ * with no event applied around the query, so a commit whose event is still in
+ * flight is never mistaken for drift.
+ */
+@Slf4j
+@Service
+public class PaymentLedger {
+
+    private static final int SCALE = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<PaymentStatus, Bucket> buckets = new EnumMap<>(PaymentStatus.class);
+    private final LongAdder applied = new LongAdder();
+    private final Counter corrections;
+    private volatile boolean loaded;
+    private Map<PaymentStatus, Totals> lastDrift;
+
+    public PaymentLedger(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (PaymentStatus status : PaymentStatus.values()) {
+            buckets.put(status, new Bucket());
+        }
+        this.corrections = meterRegistry.counter("payments.ledger.corrections");
+    }
+
+    public long count(PaymentStatus status) {
+        ensureLoaded();
+        return buckets.get(status).count.sum();
+    }
+
+    public BigDecimal amount(PaymentStatus status) {
+        ensureLoaded();
+        return BigDecimal.valueOf(buckets.get(status).minorUnits.sum(), SCALE);
+    }
+
+    public long totalCount() {
+        ensureLoaded();
+        long total = 0;
+        for (Bucket bucket : buckets.values()) {
+            total += bucket.count.sum();
+        }
+        return total;
+    }
+
+    // applied before ReportCache invalidates, so a reload after that sees this change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        if (!loaded) {
+            // the initial load will read this payment from the table
+            return;
+        }
+        if (event.oldStatus() != null) {
+            buckets.get(event.oldStatus()).add(-1, -toMinor(event.oldAmount()));
+        }
+        if (event.newStatus() != null) {
+            buckets.get(event.newStatus()).add(1, toMinor(event.amount()));
+        }
+        applied.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            log.error("Payment ledger load failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.ledger.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.payments.ledger.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            long before = applied.sum();
+            Map<PaymentStatus, Totals> ledger = snapshot();
+            Map<PaymentStatus, Totals> database = queryTotals();
+            if (applied.sum() != before) {
+                // events landed while the table was read, this round proves nothing
+                lastDrift = null;
+                return;
+            }
+
+            Map<PaymentStatus, Totals> drift = new EnumMap<>(PaymentStatus.class);
+            for (PaymentStatus status : PaymentStatus.values()) {
+                Totals db = database.getOrDefault(status, Totals.ZERO);
+                Totals mem = ledger.get(status);
+                if (!db.equals(mem)) {
+                    drift.put(status, new Totals(db.count() - mem.count(), db.minorUnits() - mem.minorUnits()));
+                }
+            }
+            if (drift.isEmpty() || !drift.equals(lastDrift)) {
+                lastDrift = drift.isEmpty() ? null : drift;
+                return;
+            }
+
+            // relative adjustments, so events applied since the snapshot are kept
+            drift.forEach((status, delta) -> buckets.get(status).add(delta.count(), delta.minorUnits()));
+            corrections.increment();
+            lastDrift = null;
+            log.warn("Payment ledger corrected by {}", drift);
+        } catch (Exception e) {
+            log.error("Payment ledger reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            Map<PaymentStatus, Totals> database = queryTotals();
+            database.forEach((status, totals) -> buckets.get(status).add(totals.count(), totals.minorUnits()));
+            loaded = true;
+            log.info("Payment ledger loaded: {}", database);
+        }
+    }
+
+    private Map<PaymentStatus, Totals> snapshot() {
+        Map<PaymentStatus, Totals> snapshot = new EnumMap<>(PaymentStatus.class);
+        buckets.forEach((status, bucket) -> snapshot.put(status,
+                new Totals(bucket.count.sum(), bucket.minorUnits.sum())));
+        return snapshot;
+    }
+
+    private Map<PaymentStatus, Totals> queryTotals() {
+        Map<PaymentStatus, Totals> totals = new EnumMap<>(PaymentStatus.class);
+        jdbcTemplate.query("""
+                SELECT status, COUNT(*) AS cnt, COALESCE(SUM(amount), 0) AS total
+                FROM Payment
+                WHERE status IS NOT NULL
+                GROUP BY status
+                """, rs -> {
+            totals.put(PaymentStatus.valueOf(rs.getString("status")),
+                    new Totals(rs.getLong("cnt"), toMinor(rs.getBigDecimal("total"))));
+        });
+        return totals;
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record Totals(long count, long minorUnits) {
+        private static final Totals ZERO = new Totals(0, 0);
+    }
+
+    private static final class Bucket {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder minorUnits = new LongAdder();
+
+        private void add(long countDelta, long minorDelta) {
+            count.add(countDelta);
+            minorUnits.add(minorDelta);
+        }
+    }
+}
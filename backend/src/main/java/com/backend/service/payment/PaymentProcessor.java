@@ -0,0 +1,158 @@
+package com.backend.service.payment;
+
+import com.backend.designpatterns.PaymentMethodBusyException;
+import com.backend.designpatterns.PaymentStrategyRegistry;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs gateway calls for PENDING payments off the request thread. Each call
+ * gets a virtual thread and goes through {@link PaymentStrategyRegistry},
+ * whose per-method bulkheads cap how many are talking to each gateway; a
+ * semaphore caps calls across all methods at {@code app.payments.max-in-flight}
+ * and queues the rest. The
+ * outcome is written with one conditional UPDATE and announced as a
+ * {@link PaymentStatusChangedEvent}.
+ *
+ * A payment turned away by a full bulkhead never reached the gateway, so it
+ * waits and tries again, with backoff from {@code app.payments.busy-retry-ms}
+ * up to {@code busy-retry-max-ms}, for as long as it is still PENDING. A
+ * timed-out call may still have charged the customer, so that payment is left
+ * PENDING for settlement reconciliation or the expiry sweep to settle.
+ */
+@Slf4j
+@Service
+public class PaymentProcessor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentStrategyRegistry paymentStrategies;
+    private final VelocityGuard velocityGuard;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+    private final long busyRetryMillis;
+    private final long busyRetryMaxMillis;
+
+    public PaymentProcessor(JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            PaymentStrategyRegistry paymentStrategies,
+            VelocityGuard velocityGuard,
+            @Value("${app.payments.max-in-flight:200}") int maxInFlight,
+            @Value("${app.payments.busy-retry-ms:500}") long busyRetryMillis,
+            @Value("${app.payments.busy-retry-max-ms:30000}") long busyRetryMaxMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.paymentStrategies = paymentStrategies;
+        this.velocityGuard = velocityGuard;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.busyRetryMillis = Math.max(1, busyRetryMillis);
+        this.busyRetryMaxMillis = Math.max(this.busyRetryMillis, busyRetryMaxMillis);
+    }
+
+    // Starts processing once the PENDING row is committed, so the worker always finds it
+    public void submitAfterCommit(Long paymentId, Long userId, Long packageId, String method, BigDecimal amount) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(paymentId, userId, packageId, method, amount);
+                }
+            });
+        } else {
+            submit(paymentId, userId, packageId, method, amount);
+        }
+    }
+
+    private void submit(Long paymentId, Long userId, Long packageId, String method, BigDecimal amount) {
+        executor.execute(() -> process(paymentId, userId, packageId, method, amount));
+    }
+
+    private void process(Long paymentId, Long userId, Long packageId, String method, BigDecimal amount) {
+        PaymentStatus outcome;
+        boolean declined = false;
+        try {
+            Boolean approved = charge(paymentId, method, amount);
+            if (approved == null) {
+                // expired by the sweep while waiting for a permit
+                return;
+            }
+            declined = !approved;
+            outcome = declined ? PaymentStatus.FAILED : PaymentStatus.SUCCESS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (TimeoutException e) {
+            log.warn("Gateway call for payment {} timed out, leaving it PENDING: {}", paymentId, e.getMessage());
+            return;
+        } catch (Exception e) {
+            log.warn("Gateway call for payment {} failed: {}", paymentId, e.getMessage());
+            outcome = PaymentStatus.FAILED;
+        }
+
+        try {
+            // a payment swept by cleanup-expired in the meantime keeps that result
+            List<Timestamp> updated = jdbcTemplate.queryForList("""
+                    UPDATE Payment SET status = ?, updated_at = ?
+                    OUTPUT inserted.paymentDate
+                    WHERE paymentID = ? AND status = 'PENDING'
+                    """, Timestamp.class, outcome.name(), LocalDateTime.now(), paymentId);
+            if (!updated.isEmpty()) {
+                // only real declines; an outage, open circuit or full bulkhead is not the client's doing
+                if (declined) {
+                    velocityGuard.recordFailure(userId, method);
+                }
+                eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                        paymentId, packageId, amount, PaymentStatus.PENDING, outcome,
+                        updated.get(0) != null ? updated.get(0).toLocalDateTime() : null, method));
+            }
+        } catch (Exception e) {
+            log.error("Failed to record outcome {} for payment {}: {}", outcome, paymentId, e.getMessage(), e);
+        }
+    }
+
+    // null when the payment stopped being PENDING before a permit came free
+    private Boolean charge(Long paymentId, String method, BigDecimal amount) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            inFlight.acquire();
+            try {
+                return paymentStrategies.execute(method, amount);
+            } catch (PaymentMethodBusyException e) {
+                log.debug("Payment {} waiting for a permit: {}", paymentId, e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+            // the in-flight permit is not held while backing off
+            Thread.sleep(Math.min(busyRetryMillis << Math.min(attempt, 16), busyRetryMaxMillis));
+            if (!isPending(paymentId)) {
+                return null;
+            }
+        }
+    }
+
+    private boolean isPending(Long paymentId) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM Payment WHERE paymentID = ? AND status = 'PENDING'",
+                Integer.class, paymentId).isEmpty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+package com.backend.service.payment;
+
+import com.backend.dto.Analyse.PaymentStatusDTO;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import com.backend.service.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets clients follow a payment until it leaves PENDING, either as a
+ * Server-Sent Events stream or as a long poll. Subscribers are registered
+ * before the current status is read, so an outcome that lands in between is
+ * never missed.
+ */
+@Slf4j
+@Service
+public class PaymentStatusStreams {
+
+    private final PaymentService paymentService;
+    private final long streamTimeoutMillis;
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Map<Long, Set<DeferredResult<PaymentStatusDTO>>> waiters = new ConcurrentHashMap<>();
+
+    public PaymentStatusStreams(PaymentService paymentService,
+            @Value("${app.payments.stream-timeout-ms:60000}") long streamTimeoutMillis) {
+        this.paymentService = paymentService;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    public SseEmitter stream(Long paymentId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Set<SseEmitter> subscribers = emitters.computeIfAbsent(paymentId, id -> ConcurrentHashMap.newKeySet());
+        subscribers.add(emitter);
+        Runnable remove = () -> remove(emitters, paymentId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        PaymentStatusDTO current;
+        try {
+            current = currentStatus(paymentId);
+        } catch (RuntimeException e) {
+            remove.run();
+            throw e;
+        }
+        send(emitter, current);
+        if (current.status() != PaymentStatus.PENDING) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    // Completes with the first non-PENDING status, or with the current one when the wait runs out
+    public DeferredResult<PaymentStatusDTO> await(Long paymentId, long waitMillis) {
+        DeferredResult<PaymentStatusDTO> result = new DeferredResult<>(waitMillis);
+        Set<DeferredResult<PaymentStatusDTO>> pending = waiters.computeIfAbsent(paymentId,
+                id -> ConcurrentHashMap.newKeySet());
+        pending.add(result);
+        result.onCompletion(() -> remove(waiters, paymentId, result));
+        result.onTimeout(() -> result.setResult(currentStatus(paymentId)));
+
+        PaymentStatusDTO current;
+        try {
+            current = currentStatus(paymentId);
+        } catch (RuntimeException e) {
+            remove(waiters, paymentId, result);
+            throw e;
+        }
+        if (current.status() != PaymentStatus.PENDING) {
+            result.setResult(current);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.newStatus() == null || event.newStatus() == PaymentStatus.PENDING) {
+            return;
+        }
+        PaymentStatusDTO status = new PaymentStatusDTO(event.paymentId(), event.newStatus(), LocalDateTime.now());
+        Set<SseEmitter> subscribers = emitters.remove(event.paymentId());
+        if (subscribers != null) {
+            for (SseEmitter emitter : subscribers) {
+                send(emitter, status);
+                emitter.complete();
+            }
+        }
+        Set<DeferredResult<PaymentStatusDTO>> pending = waiters.remove(event.paymentId());
+        if (pending != null) {
+            pending.forEach(result -> result.setResult(status));
+        }
+    }
+
+    private PaymentStatusDTO currentStatus(Long paymentId) {
+        return paymentService.getPaymentStatus(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found: " + paymentId));
+    }
+
+    private void send(SseEmitter emitter, PaymentStatusDTO status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status));
+        } catch (IOException | IllegalStateException e) {
+            // client went away
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static <T> void remove(Map<Long, Set<T>> registry, Long paymentId, T subscriber) {
+        registry.computeIfPresent(paymentId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
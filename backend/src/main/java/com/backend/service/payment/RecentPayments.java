@@ -0,0 +1,216 @@
+package com.backend.service.payment;
+
+import com.backend.dto.Analyse.PaymentDTO;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.event.PaymentStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ring buffer of the latest {@code app.payments.recent.capacity} payments,
+ * so the recent list never reads the Payment table. New payments overwrite
+ * the oldest slot after their transaction commits; status changes and
+ * deletes are applied to a payment still in the buffer. On startup the
+ * buffer is warmed with a single {@code TOP (n)} query.
+ */
+@Slf4j
+@Service
+public class RecentPayments {
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::paymentDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Entry::paymentId)
+            .reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Entry[] ring;
+    private int next;
+    private volatile boolean loaded;
+
+    public RecentPayments(JdbcTemplate jdbcTemplate,
+            @Value("${app.payments.recent.capacity:50}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public List<PaymentDTO> latest(int limit) {
+        if (limit < 1 || limit > ring.length) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + ring.length);
+        }
+        ensureLoaded();
+        List<Entry> snapshot = new ArrayList<>(ring.length);
+        synchronized (this) {
+            for (Entry entry : ring) {
+                if (entry != null) {
+                    snapshot.add(entry);
+                }
+            }
+        }
+        snapshot.sort(NEWEST_FIRST);
+        return snapshot.stream().limit(limit).map(Entry::toDTO).toList();
+    }
+
+    // Puts a new payment in the buffer once the current transaction commits
+    public void addAfterCommit(PaymentDTO payment) {
+        Entry entry = Entry.of(payment);
+        afterCommit(() -> {
+            if (!loaded) {
+                return;
+            }
+            synchronized (this) {
+                if (indexOf(entry.paymentId()) < 0) {
+                    ring[next] = entry;
+                    next = (next + 1) % ring.length;
+                }
+            }
+        });
+    }
+
+    // Refreshes a payment after an edit, if it is still among the latest
+    public void replaceAfterCommit(PaymentDTO payment) {
+        Entry entry = Entry.of(payment);
+        afterCommit(() -> {
+            synchronized (this) {
+                int i = indexOf(entry.paymentId());
+                if (i >= 0) {
+                    ring[i] = entry;
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStatusChanged(PaymentStatusChangedEvent event) {
+        int i = indexOf(event.paymentId());
+        if (i < 0) {
+            return;
+        }
+        if (event.newStatus() == null) {
+            ring[i] = null;
+        } else {
+            ring[i] = ring[i].withStatus(event.newStatus(), event.amount(), LocalDateTime.now());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            log.error("Recent payments warm-up failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            List<Entry> latest = jdbcTemplate.query("""
+                    SELECT TOP (?) p.paymentID, p.userID, p.packageID, p.amount, p.paymentDate, p.status, p.method,
+                           p.created_at, p.updated_at, r.reservationID
+                    FROM Payment p
+                    OUTER APPLY (SELECT TOP 1 reservationID FROM Reservation WHERE paymentID = p.paymentID) r
+                    ORDER BY p.paymentDate DESC, p.paymentID DESC
+                    """,
+                    (rs, n) -> new Entry(
+                            rs.getLong("paymentID"),
+                            rs.getObject("reservationID", Long.class),
+                            rs.getObject("userID", Long.class),
+                            rs.getObject("packageID", Long.class),
+                            rs.getBigDecimal("amount"),
+                            toLocal(rs.getTimestamp("paymentDate")),
+                            rs.getString("status") != null ? PaymentStatus.valueOf(rs.getString("status")) : null,
+                            rs.getString("method"),
+                            toLocal(rs.getTimestamp("created_at")),
+                            toLocal(rs.getTimestamp("updated_at"))),
+                    ring.length);
+            // oldest first, so the next write overwrites the oldest slot
+            for (int i = latest.size() - 1; i >= 0; i--) {
+                ring[next] = latest.get(i);
+                next = (next + 1) % ring.length;
+            }
+            loaded = true;
+            log.info("Recent payments warmed with {} entries", latest.size());
+        }
+    }
+
+    private int indexOf(Long paymentId) {
+        for (int i = 0; i < ring.length; i++) {
+            if (ring[i] != null && ring[i].paymentId().equals(paymentId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Entry(Long paymentId, Long reservationId, Long userId, Long packageId, BigDecimal amount,
+            LocalDateTime paymentDate, PaymentStatus status, String method, LocalDateTime createdAt,
+            LocalDateTime updatedAt) {
+
+        private static Entry of(PaymentDTO dto) {
+            return new Entry(dto.getPaymentId(), dto.getReservationId(), dto.getUserId(), dto.getPackageId(),
+                    dto.getAmount(), dto.getPaymentDate(), dto.getStatus(), dto.getMethod(), dto.getCreatedAt(),
+                    dto.getUpdatedAt());
+        }
+
+        private Entry withStatus(PaymentStatus newStatus, BigDecimal newAmount, LocalDateTime now) {
+            return new Entry(paymentId, reservationId, userId, packageId, newAmount, paymentDate, newStatus, method,
+                    createdAt, now);
+        }
+
+        // a fresh DTO per read, so callers can never change the buffer
+        private PaymentDTO toDTO() {
+            PaymentDTO dto = new PaymentDTO();
+            dto.setPaymentId(paymentId);
+            dto.setReservationId(reservationId);
+            dto.setUserId(userId);
+            dto.setPackageId(packageId);
+            dto.setAmount(amount);
+            dto.setPaymentDate(paymentDate);
+            dto.setStatus(status);
+            dto.setMethod(method);
+            dto.setCreatedAt(createdAt);
+            dto.setUpdatedAt(updatedAt);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.backend.service.payment;
+
+import com.backend.designpatterns.PaymentStrategyRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-client payment velocity limits, checked before a payment is written or
+ * sent to the gateway. Each client has one sliding window over all methods
+ * and one per method, each holding attempts, failures and the attempted
+ * amount in {@code buckets} time buckets.
+ *
+ * Windows live in open-addressing tables keyed by a packed
+ * {@code userId << 8 | method} long, with every field in flat primitive
+ * arrays. The tables are split into stripes by user, so both windows of a
+ * client sit under one short lock. A stripe that fills up drops idle windows
+ * first and then the least recently used ones, which keeps memory at
+ * {@code max-windows} however many clients show up.
+ *
+ * In REJECT mode a violating attempt is refused; in FLAG mode it is logged
+ * and counted but let through.
+ */
+@Slf4j
+@Service
+public class VelocityGuard {
+
+    public enum Mode { REJECT, FLAG }
+
+    private static final int STRIPES = 32;
+    // method slot 0 is the client's window over all methods
+    private static final int ALL_METHODS = 0;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Integer> methodSlots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextMethodSlot = new AtomicInteger(1);
+    private final MeterRegistry meterRegistry;
+    private final Counter allowed;
+    private final Mode mode;
+    private final long bucketMillis;
+    private final int buckets;
+    private final int maxAttempts;
+    private final int maxMethodAttempts;
+    private final int maxFailures;
+    private final long maxAmountMinor;
+
+    public VelocityGuard(MeterRegistry meterRegistry,
+            @Value("${app.payments.velocity.mode:REJECT}") Mode mode,
+            @Value("${app.payments.velocity.window-seconds:600}") int windowSeconds,
+            @Value("${app.payments.velocity.buckets:6}") int buckets,
+            @Value("${app.payments.velocity.max-attempts:10}") int maxAttempts,
+            @Value("${app.payments.velocity.max-method-attempts:5}") int maxMethodAttempts,
+            @Value("${app.payments.velocity.max-failures:3}") int maxFailures,
+            @Value("${app.payments.velocity.max-amount:1000000}") BigDecimal maxAmount,
+            @Value("${app.payments.velocity.max-windows:20000}") int maxWindows) {
+        this.meterRegistry = meterRegistry;
+        this.allowed = meterRegistry.counter("payments.velocity", "outcome", "allowed", "rule", "none");
+        this.mode = mode;
+        this.buckets = Math.max(1, buckets);
+        this.bucketMillis = Math.max(1, windowSeconds * 1000L / this.buckets);
+        this.maxAttempts = maxAttempts;
+        this.maxMethodAttempts = maxMethodAttempts;
+        this.maxFailures = maxFailures;
+        this.maxAmountMinor = toMinor(maxAmount);
+        // a power of two that holds max-windows at the 3/4 load eviction kicks in at
+        int needed = Math.max(64, maxWindows / STRIPES * 4 / 3);
+        int perStripe = Integer.highestOneBit(needed * 2 - 1);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe, this.buckets);
+        }
+    }
+
+    /**
+     * Counts an attempt by {@code userId} with {@code method} and returns null
+     * if it may go ahead, or the broken limit. Only throws in REJECT mode.
+     */
+    public String check(Long userId, String method, BigDecimal amount) {
+        if (userId == null) {
+            return null;
+        }
+        int methodSlot = methodSlot(method);
+        long now = System.currentTimeMillis();
+        long epoch = now / bucketMillis;
+        long amountMinor = toMinor(amount);
+        Stripe stripe = stripes[stripeOf(userId)];
+
+        String violation;
+        synchronized (stripe) {
+            stripe.reserve(2, now, bucketMillis * buckets);
+            int all = stripe.slotFor(pack(userId, ALL_METHODS), now);
+            int perMethod = stripe.slotFor(pack(userId, methodSlot), now);
+            Totals client = stripe.totals(all, epoch);
+            Totals byMethod = stripe.totals(perMethod, epoch);
+
+            if (client.failures() >= maxFailures) {
+                violation = "failures";
+            } else if (client.attempts() + 1 > maxAttempts) {
+                violation = "attempts";
+            } else if (byMethod.attempts() + 1 > maxMethodAttempts) {
+                violation = "method_attempts";
+            } else if (client.amountMinor() + amountMinor > maxAmountMinor) {
+                violation = "amount";
+            } else {
+                violation = null;
+            }
+
+            // blocked attempts still count, so a burst stays blocked for the whole window
+            boolean passes = violation == null || mode == Mode.FLAG;
+            stripe.record(all, epoch, 1, 0, passes ? amountMinor : 0);
+            stripe.record(perMethod, epoch, 1, 0, passes ? amountMinor : 0);
+        }
+
+        if (violation == null) {
+            allowed.increment();
+            return null;
+        }
+        if (mode == Mode.FLAG) {
+            meterRegistry.counter("payments.velocity", "outcome", "flagged", "rule", violation).increment();
+            log.warn("Velocity limit '{}' exceeded by client {} ({}), flagged", violation, userId, method);
+            return violation;
+        }
+        meterRegistry.counter("payments.velocity", "outcome", "blocked", "rule", violation).increment();
+        log.warn("Velocity limit '{}' exceeded by client {} ({}), blocked", violation, userId, method);
+        throw new VelocityLimitException("Too many payment attempts, please try again later");
+    }
+
+    // A gateway decline or error; enough of them block the client for the rest of the window
+    public void recordFailure(Long userId, String method) {
+        if (userId == null) {
+            return;
+        }
+        int methodSlot = methodSlot(method);
+        long now = System.currentTimeMillis();
+        long epoch = now / bucketMillis;
+        Stripe stripe = stripes[stripeOf(userId)];
+        synchronized (stripe) {
+            stripe.reserve(2, now, bucketMillis * buckets);
+            stripe.record(stripe.slotFor(pack(userId, ALL_METHODS), now), epoch, 0, 1, 0);
+            stripe.record(stripe.slotFor(pack(userId, methodSlot), now), epoch, 0, 1, 0);
+        }
+    }
+
+    private int methodSlot(String method) {
+        String name = PaymentStrategyRegistry.normalize(method);
+        if (name == null) {
+            return 255;
+        }
+        // only supported methods get here, so the slots stay few
+        return methodSlots.computeIfAbsent(name, m -> Math.min(nextMethodSlot.getAndIncrement(), 254));
+    }
+
+    private static long pack(long userId, int methodSlot) {
+        return userId << 8 | methodSlot;
+    }
+
+    private static int stripeOf(long userId) {
+        return (int) (mix(userId) >>> 59) & (STRIPES - 1);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private record Totals(int attempts, int failures, long amountMinor) {
+    }
+
+    /**
+     * One open-addressing table with linear probing. Keys are stored plus one
+     * so 0 marks a free slot; bucket {@code b} of slot {@code s} lives at
+     * index {@code s * buckets + b}.
+     */
+    private static final class Stripe {
+        private final int buckets;
+        private long[] keys;
+        private long[] lastSeen;
+        private long[] bucketEpoch;
+        private int[] attempts;
+        private int[] failures;
+        private long[] amounts;
+        private int size;
+
+        private Stripe(int capacity, int buckets) {
+            this.buckets = buckets;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            lastSeen = new long[capacity];
+            bucketEpoch = new long[capacity * buckets];
+            attempts = new int[capacity * buckets];
+            failures = new int[capacity * buckets];
+            amounts = new long[capacity * buckets];
+            size = 0;
+        }
+
+        // Makes room for n new windows up front, so slots handed out afterwards stay valid
+        private void reserve(int n, long now, long windowMillis) {
+            if (size + n > keys.length * 3 / 4) {
+                evict(now, windowMillis);
+            }
+        }
+
+        private int slotFor(long key, long now) {
+            int slot = find(key + 1);
+            if (slot >= 0) {
+                lastSeen[slot] = now;
+                return slot;
+            }
+            slot = insertionPoint(key + 1);
+            keys[slot] = key + 1;
+            lastSeen[slot] = now;
+            size++;
+            return slot;
+        }
+
+        private Totals totals(int slot, long epoch) {
+            int a = 0;
+            int f = 0;
+            long amt = 0;
+            int base = slot * buckets;
+            for (int b = 0; b < buckets; b++) {
+                if (bucketEpoch[base + b] > epoch - buckets) {
+                    a += attempts[base + b];
+                    f += failures[base + b];
+                    amt += amounts[base + b];
+                }
+            }
+            return new Totals(a, f, amt);
+        }
+
+        private void record(int slot, long epoch, int attempt, int failure, long amountMinor) {
+            int i = slot * buckets + (int) (epoch % buckets);
+            if (bucketEpoch[i] != epoch) {
+                bucketEpoch[i] = epoch;
+                attempts[i] = 0;
+                failures[i] = 0;
+                amounts[i] = 0;
+            }
+            attempts[i] += attempt;
+            failures[i] += failure;
+            amounts[i] += amountMinor;
+        }
+
+        private int find(long storedKey) {
+            int mask = keys.length - 1;
+            for (int i = (int) mix(storedKey) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == storedKey) {
+                    return i;
+                }
+                if (keys[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private int insertionPoint(long storedKey) {
+            int mask = keys.length - 1;
+            int i = (int) mix(storedKey) & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        // Rehashes the live windows; if idle ones are not enough, keeps only the most recent half
+        private void evict(long now, long windowMillis) {
+            long cutoff = now - windowMillis;
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && lastSeen[i] >= cutoff) {
+                    live++;
+                }
+            }
+            if (live > keys.length / 2) {
+                long[] seen = new long[live];
+                int n = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0 && lastSeen[i] >= cutoff) {
+                        seen[n++] = lastSeen[i];
+                    }
+                }
+                Arrays.sort(seen);
+                cutoff = seen[live - keys.length / 2];
+            }
+
+            long[] oldKeys = keys;
+            long[] oldSeen = lastSeen;
+            long[] oldEpoch = bucketEpoch;
+            int[] oldAttempts = attempts;
+            int[] oldFailures = failures;
+            long[] oldAmounts = amounts;
+            allocate(oldKeys.length);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0 || oldSeen[i] < cutoff || size >= keys.length / 2) {
+                    continue;
+                }
+                int slot = insertionPoint(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lastSeen[slot] = oldSeen[i];
+                System.arraycopy(oldEpoch, i * buckets, bucketEpoch, slot * buckets, buckets);
+                System.arraycopy(oldAttempts, i * buckets, attempts, slot * buckets, buckets);
+                System.arraycopy(oldFailures, i * buckets, failures, slot * buckets, buckets);
+                System.arraycopy(oldAmounts, i * buckets, amounts, slot * buckets, buckets);
+                size++;
+            }
+        }
+    }
+}
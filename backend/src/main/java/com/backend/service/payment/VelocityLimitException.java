@@ -0,0 +1,9 @@
+package com.backend.service.payment;
+
+// Thrown when a client exceeds its payment velocity limits; answered with 429
+public class VelocityLimitException extends RuntimeException {
+
+    public VelocityLimitException(String message) {
+        super(message);
+    }
+}
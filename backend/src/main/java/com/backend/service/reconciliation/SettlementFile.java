@@ -0,0 +1,245 @@
+package com.backend.service.reconciliation;
+
+import com.backend.entity.enums.PaymentStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a gateway settlement file of {@code paymentID,amount,status} lines
+ * (an optional header and extra trailing columns are ignored) into parallel
+ * primitive columns. The file is memory-mapped and cut into line-aligned
+ * chunks that are parsed by fork/join tasks straight from the mapped bytes;
+ * no line is ever copied into a String. Amounts are kept as minor units.
+ */
+final class SettlementFile {
+
+    static final byte MALFORMED = -1;
+
+    private static final byte[][] STATUS_TOKENS = new byte[PaymentStatus.values().length][];
+    // gateways call a captured payment SETTLED
+    private static final byte[] SETTLED = "SETTLED".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            STATUS_TOKENS[status.ordinal()] = status.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    final int lines;
+    final long[] paymentIds;
+    final long[] amounts;
+    // PaymentStatus ordinal, or MALFORMED
+    final byte[] statuses;
+    // 1-based line number of each row
+    final int[] lineNumbers;
+
+    private SettlementFile(int lines, long[] paymentIds, long[] amounts, byte[] statuses, int[] lineNumbers) {
+        this.lines = lines;
+        this.paymentIds = paymentIds;
+        this.amounts = amounts;
+        this.statuses = statuses;
+        this.lineNumbers = lineNumbers;
+    }
+
+    int rows() {
+        return paymentIds.length;
+    }
+
+    static SettlementFile parse(Path path, ForkJoinPool pool, int chunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Settlement file is larger than 2 GB, split it first");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            // cut at the first line break after every chunkBytes, so no line is split
+            List<ParseChunk> chunks = new ArrayList<>();
+            int start = 0;
+            while (start < size) {
+                int end = (int) Math.min(size, (long) start + chunkBytes);
+                while (end < size && buffer.get(end - 1) != '\n') {
+                    end++;
+                }
+                chunks.add(new ParseChunk(buffer, start, end, start == 0));
+                start = end;
+            }
+            pool.submit(() -> ForkJoinTask.invokeAll(chunks)).join();
+
+            int rows = 0;
+            int lines = 0;
+            for (ParseChunk chunk : chunks) {
+                rows += chunk.rows;
+                lines += chunk.lines;
+            }
+            long[] ids = new long[rows];
+            long[] amounts = new long[rows];
+            byte[] statuses = new byte[rows];
+            int[] lineNumbers = new int[rows];
+            int at = 0;
+            int lineBase = 0;
+            for (ParseChunk chunk : chunks) {
+                System.arraycopy(chunk.ids, 0, ids, at, chunk.rows);
+                System.arraycopy(chunk.amounts, 0, amounts, at, chunk.rows);
+                System.arraycopy(chunk.statuses, 0, statuses, at, chunk.rows);
+                for (int i = 0; i < chunk.rows; i++) {
+                    lineNumbers[at + i] = lineBase + chunk.lineNumbers[i];
+                }
+                at += chunk.rows;
+                lineBase += chunk.lines;
+            }
+            return new SettlementFile(lines, ids, amounts, statuses, lineNumbers);
+        }
+    }
+
+    private static final class ParseChunk extends RecursiveAction {
+        private final MappedByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final boolean first;
+        private int rows;
+        private int lines;
+        private long[] ids;
+        private long[] amounts;
+        private byte[] statuses;
+        private int[] lineNumbers;
+
+        private ParseChunk(MappedByteBuffer buffer, int from, int to, boolean first) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.first = first;
+        }
+
+        @Override
+        protected void compute() {
+            int capacity = Math.max(16, (to - from) / 16);
+            ids = new long[capacity];
+            amounts = new long[capacity];
+            statuses = new byte[capacity];
+            lineNumbers = new int[capacity];
+
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                lines++;
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                boolean header = first && lines == 1 && contentEnd > lineStart && !isDigit(buffer.get(lineStart));
+                if (contentEnd > lineStart && !header) {
+                    parseLine(lineStart, contentEnd);
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private void parseLine(int start, int end) {
+            if (rows == ids.length) {
+                int grown = rows * 2;
+                ids = Arrays.copyOf(ids, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+                statuses = Arrays.copyOf(statuses, grown);
+                lineNumbers = Arrays.copyOf(lineNumbers, grown);
+            }
+            int row = rows++;
+            lineNumbers[row] = lines;
+            statuses[row] = MALFORMED;
+
+            // paymentID
+            int i = start;
+            long id = 0;
+            int digits = 0;
+            while (i < end && isDigit(buffer.get(i))) {
+                id = id * 10 + (buffer.get(i++) - '0');
+                digits++;
+            }
+            ids[row] = id;
+            if (digits == 0 || digits > 18 || i >= end || buffer.get(i++) != ',') {
+                return;
+            }
+
+            // amount, up to two decimals
+            long units = 0;
+            int fraction = -1;
+            digits = 0;
+            while (i < end && buffer.get(i) != ',') {
+                byte b = buffer.get(i++);
+                if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                } else if (isDigit(b) && fraction < 2 && digits < 17) {
+                    units = units * 10 + (b - '0');
+                    digits++;
+                    if (fraction >= 0) {
+                        fraction++;
+                    }
+                } else {
+                    return;
+                }
+            }
+            if (digits == 0 || i >= end) {
+                return;
+            }
+            for (int scale = Math.max(fraction, 0); scale < 2; scale++) {
+                units *= 10;
+            }
+            amounts[row] = units;
+            i++;
+
+            // status, up to the next column
+            int statusEnd = i;
+            while (statusEnd < end && buffer.get(statusEnd) != ',') {
+                statusEnd++;
+            }
+            statuses[row] = status(i, statusEnd);
+        }
+
+        private byte status(int start, int end) {
+            if (matches(start, end, SETTLED)) {
+                return (byte) PaymentStatus.SUCCESS.ordinal();
+            }
+            for (int s = 0; s < STATUS_TOKENS.length; s++) {
+                if (matches(start, end, STATUS_TOKENS[s])) {
+                    return (byte) s;
+                }
+            }
+            return MALFORMED;
+        }
+
+        private boolean matches(int start, int end, byte[] token) {
+            if (end - start != token.length) {
+                return false;
+            }
+            for (int k = 0; k < token.length; k++) {
+                byte b = buffer.get(start + k);
+                // ASCII upper-casing, statuses are letters and '_'
+                if (b >= 'a' && b <= 'z') {
+                    b -= 32;
+                }
+                if (b != token[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.backend.service.reconciliation;
+
+import com.backend.entity.ReconciliationRun;
+import com.backend.entity.enums.PaymentStatus;
+import com.backend.entity.enums.ReconciliationIssueType;
+import com.backend.entity.enums.ReconciliationStatus;
+import com.backend.repository.ReconciliationRunRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconciles a gateway settlement file against the Payment table. The file is
+ * parsed by {@link SettlementFile}; the payments it can refer to are loaded
+ * once into sorted primitive arrays, and the rows are matched against them in
+ * parallel fork/join chunks by binary search. A payment settled on several
+ * lines is checked against its lowest line and the others are duplicates.
+ * Every amount, status, missing and duplicate mismatch becomes a
+ * ReconciliationIssue row. The same run then
+ * checks, in SQL, that the reservations and refunds pointing at those
+ * payments agree with them.
+ *
+ * Files dropped into {@code app.reconciliation.inbox-dir} are picked up on
+ * {@code app.reconciliation.cron}; a yyyy-MM-dd in the file name is taken as
+ * the settlement date.
+ */
+@Slf4j
+@Service
+public class SettlementReconciler {
+
+    private static final int MATCH_THRESHOLD = 16_384;
+    private static final int UNSEEN = Integer.MAX_VALUE;
+    private static final int INSERT_BATCH = 1000;
+    // SQL Server allows 2100 parameters per statement
+    private static final int ID_BATCH = 2000;
+    private static final Pattern DATE_IN_NAME = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReconciliationRunRepository runRepository;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final String inboxDir;
+    private final AtomicBoolean inboxRunning = new AtomicBoolean();
+
+    public SettlementReconciler(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ReconciliationRunRepository runRepository,
+            @Value("${app.reconciliation.parallelism:0}") int parallelism,
+            @Value("${app.reconciliation.chunk-bytes:1048576}") int chunkBytes,
+            @Value("${app.reconciliation.inbox-dir:}") String inboxDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runRepository = runRepository;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkBytes = Math.max(4096, chunkBytes);
+        this.inboxDir = inboxDir;
+    }
+
+    public ReconciliationRun reconcile(Path file, String fileName, LocalDate settlementDate) {
+        ReconciliationRun run = new ReconciliationRun();
+        run.setFileName(fileName);
+        run.setSettlementDate(settlementDate);
+        run = runRepository.save(run);
+        long started = System.currentTimeMillis();
+
+        try {
+            SettlementFile settlement = SettlementFile.parse(file, pool, chunkBytes);
+            Snapshot payments = loadPayments(settlement, settlementDate);
+            // first pass claims each payment for its lowest line, second checks that line and flags the rest
+            List<Issue> issues = pool.invoke(new MatchTask(settlement, payments, 0, settlement.rows(), true));
+            issues.addAll(pool.invoke(new MatchTask(settlement, payments, 0, settlement.rows(), false)));
+            long matched = settlement.rows() - issues.size();
+            if (settlementDate != null) {
+                issues.addAll(missingSettlements(payments));
+            }
+            if (payments.ids.length > 0) {
+                issues.addAll(linkIssues(payments.ids[0], payments.ids[payments.ids.length - 1]));
+            }
+
+            Long runId = run.getRunID();
+            ReconciliationRun finished = run;
+            finished.setLines(settlement.lines);
+            finished.setMatched(matched);
+            finished.setIssues(issues.size());
+            finished.setStatus(ReconciliationStatus.COMPLETED);
+            finished.setFinishedAt(LocalDateTime.now());
+            run = transactionTemplate.execute(status -> {
+                writeIssues(runId, issues);
+                return runRepository.save(finished);
+            });
+            log.info("Reconciled {} ({} lines) in {} ms: {} matched, {} issues", fileName, settlement.lines,
+                    System.currentTimeMillis() - started, matched, issues.size());
+            return run;
+        } catch (IOException | RuntimeException e) {
+            log.error("Reconciliation of {} failed: {}", fileName, e.getMessage(), e);
+            run.setStatus(ReconciliationStatus.FAILED);
+            run.setError(truncate(e.getMessage(), 1000));
+            run.setFinishedAt(LocalDateTime.now());
+            ReconciliationRun failed = runRepository.save(run);
+            if (e instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            return failed;
+        }
+    }
+
+    // A whole inbox can take minutes, so it runs on its own thread instead of the shared scheduler thread
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 3 * * *}")
+    public void reconcileInboxScheduled() {
+        if (inboxDir == null || inboxDir.isBlank() || !inboxRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("settlement-inbox").start(() -> {
+            try {
+                reconcileInbox();
+            } finally {
+                inboxRunning.set(false);
+            }
+        });
+    }
+
+    private void reconcileInbox() {
+        Path inbox = Path.of(inboxDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox, "*.{csv,txt}")) {
+            for (Path file : files) {
+                ReconciliationRun run = reconcile(file, file.getFileName().toString(),
+                        dateFromName(file.getFileName().toString()));
+                Path target = inbox.resolve(run.getStatus() == ReconciliationStatus.COMPLETED ? "processed" : "failed");
+                Files.createDirectories(target);
+                Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Settlement inbox {} could not be processed: {}", inboxDir, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // "settlement-2025-01-31.csv" settles 2025-01-31
+    public static LocalDate dateFromName(String fileName) {
+        Matcher m = DATE_IN_NAME.matcher(fileName);
+        if (!m.find()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(m.group(1));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Every payment the file names, plus the settlement day's payments, sorted by id. Only those ids are
+    // loaded, so memory follows the file and the day rather than the id range between them.
+    private Snapshot loadPayments(SettlementFile settlement, LocalDate settlementDate) {
+        long[] named = namedIds(settlement);
+        // without a settlement date the day range is empty
+        LocalDate day = settlementDate != null ? settlementDate : LocalDate.EPOCH;
+        Timestamp dayStart = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp dayEnd = Timestamp.valueOf((settlementDate != null ? day.plusDays(1) : day).atStartOfDay());
+
+        SnapshotBuilder fromFile = new SnapshotBuilder(Math.max(16, named.length));
+        for (int from = 0; from < named.length; from += ID_BATCH) {
+            int to = Math.min(named.length, from + ID_BATCH);
+            Object[] params = new Object[to - from + 2];
+            params[0] = dayStart;
+            params[1] = dayEnd;
+            for (int i = from; i < to; i++) {
+                params[i - from + 2] = named[i];
+            }
+            jdbcTemplate.query("""
+                    SELECT paymentID, amount, status,
+                           CASE WHEN paymentDate >= ? AND paymentDate < ? THEN 1 ELSE 0 END AS onSettlementDay
+                    FROM Payment
+                    WHERE paymentID IN (%s)
+                    ORDER BY paymentID
+                    """.formatted(String.join(", ", Collections.nCopies(to - from, "?"))),
+                    rs -> {
+                        addRow(fromFile, rs, rs.getInt("onSettlementDay") == 1);
+                    }, params);
+        }
+        if (settlementDate == null) {
+            return fromFile.build();
+        }
+
+        // the day's payments the file left out, which only matter as missing settlements
+        SnapshotBuilder dayOnly = new SnapshotBuilder(16);
+        jdbcTemplate.query("""
+                SELECT paymentID, amount, status
+                FROM Payment
+                WHERE paymentDate >= ? AND paymentDate < ?
+                ORDER BY paymentID
+                """, rs -> {
+            if (Arrays.binarySearch(named, rs.getLong("paymentID")) < 0) {
+                addRow(dayOnly, rs, true);
+            }
+        }, dayStart, dayEnd);
+        return SnapshotBuilder.merge(fromFile, dayOnly);
+    }
+
+    // Distinct payment ids of the readable rows, ascending
+    private static long[] namedIds(SettlementFile settlement) {
+        long[] ids = new long[settlement.rows()];
+        int size = 0;
+        for (int i = 0; i < settlement.rows(); i++) {
+            if (settlement.statuses[i] != SettlementFile.MALFORMED) {
+                ids[size++] = settlement.paymentIds[i];
+            }
+        }
+        Arrays.parallelSort(ids, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    private static void addRow(SnapshotBuilder builder, ResultSet rs, boolean onSettlementDay) throws SQLException {
+        BigDecimal amount = rs.getBigDecimal("amount");
+        String status = rs.getString("status");
+        builder.add(rs.getLong("paymentID"),
+                amount != null ? amount.movePointRight(2).longValue() : 0,
+                status != null ? (byte) PaymentStatus.valueOf(status).ordinal() : SettlementFile.MALFORMED,
+                onSettlementDay);
+    }
+
+    private List<Issue> missingSettlements(Snapshot payments) {
+        List<Issue> issues = new ArrayList<>();
+        byte success = (byte) PaymentStatus.SUCCESS.ordinal();
+        for (int i = 0; i < payments.ids.length; i++) {
+            if (payments.onSettlementDay[i] && payments.statuses[i] == success && payments.firstRow.get(i) == UNSEEN) {
+                issues.add(new Issue(payments.ids[i], null, ReconciliationIssueType.MISSING_SETTLEMENT,
+                        "settled " + minor(payments.amounts[i]), "not in file"));
+            }
+        }
+        return issues;
+    }
+
+    private List<Issue> linkIssues(long minId, long maxId) {
+        List<Issue> issues = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT r.paymentID, r.reservationID, r.status AS reservationStatus, p.status AS paymentStatus,
+                       r.userID AS reservationUser, p.userID AS paymentUser,
+                       r.packageID AS reservationPackage, p.packageID AS paymentPackage
+                FROM Reservation r
+                JOIN Payment p ON p.paymentID = r.paymentID
+                WHERE r.paymentID BETWEEN ? AND ?
+                  AND (r.userID <> p.userID OR r.packageID <> p.packageID
+                       OR (r.status IN ('CONFIRMED', 'COMPLETED') AND p.status IN ('FAILED', 'REFUNDED')))
+                """, rs -> {
+            issues.add(new Issue(rs.getLong("paymentID"), null, ReconciliationIssueType.RESERVATION_LINK,
+                    "payment user " + rs.getLong("paymentUser") + ", package " + rs.getLong("paymentPackage")
+                            + ", " + rs.getString("paymentStatus"),
+                    "reservation " + rs.getLong("reservationID") + " user " + rs.getLong("reservationUser")
+                            + ", package " + rs.getLong("reservationPackage") + ", "
+                            + rs.getString("reservationStatus")));
+        }, minId, maxId);
+        jdbcTemplate.query("""
+                SELECT f.paymentID, f.refundID, f.status AS refundStatus, f.amount AS refundAmount,
+                       p.status AS paymentStatus, p.amount AS paymentAmount
+                FROM Refund f
+                JOIN Payment p ON p.paymentID = f.paymentID
+                WHERE f.paymentID BETWEEN ? AND ?
+                  AND (f.amount > p.amount
+                       OR p.status IN ('PENDING', 'FAILED')
+                       OR (f.status = 'ISSUED' AND p.status <> 'REFUNDED'))
+                """, rs -> {
+            issues.add(new Issue(rs.getLong("paymentID"), null, ReconciliationIssueType.REFUND_LINK,
+                    "payment " + rs.getString("paymentStatus") + " " + rs.getBigDecimal("paymentAmount"),
+                    "refund " + rs.getLong("refundID") + " " + rs.getString("refundStatus") + " "
+                            + rs.getBigDecimal("refundAmount")));
+        }, minId, maxId);
+        jdbcTemplate.query("""
+                SELECT p.paymentID
+                FROM Payment p
+                WHERE p.paymentID BETWEEN ? AND ?
+                  AND p.status = 'REFUNDED'
+                  AND NOT EXISTS (SELECT 1 FROM Refund f
+                                  WHERE f.paymentID = p.paymentID AND f.status IN ('APPROVED', 'ISSUED'))
+                """, rs -> {
+            issues.add(new Issue(rs.getLong("paymentID"), null, ReconciliationIssueType.REFUND_LINK,
+                    "approved or issued refund", "none"));
+        }, minId, maxId);
+        return issues;
+    }
+
+    private void writeIssues(Long runId, List<Issue> issues) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < issues.size(); from += INSERT_BATCH) {
+            List<Issue> batch = issues.subList(from, Math.min(issues.size(), from + INSERT_BATCH));
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO ReconciliationIssue (runID, paymentID, lineNumber, type, expected, actual, createdAt)
+                    VALUES (?, ?, ?, ?, ?, ?, ?)
+                    """, batch, batch.size(), (ps, issue) -> {
+                ps.setLong(1, runId);
+                ps.setObject(2, issue.paymentId());
+                ps.setObject(3, issue.lineNumber());
+                ps.setString(4, issue.type().name());
+                ps.setString(5, truncate(issue.expected(), 255));
+                ps.setString(6, truncate(issue.actual(), 255));
+                ps.setTimestamp(7, now);
+            });
+        }
+    }
+
+    private static String minor(long units) {
+        return BigDecimal.valueOf(units, 2).toPlainString();
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+
+    private record Issue(Long paymentId, Long lineNumber, ReconciliationIssueType type, String expected,
+            String actual) {
+    }
+
+    private static final class Snapshot {
+        private final long[] ids;
+        private final long[] amounts;
+        private final byte[] statuses;
+        private final boolean[] onSettlementDay;
+        // lowest file row that matched each payment, to spot duplicates and gaps
+        private final AtomicIntegerArray firstRow;
+
+        private Snapshot(long[] ids, long[] amounts, byte[] statuses, boolean[] onSettlementDay) {
+            this.ids = ids;
+            this.amounts = amounts;
+            this.statuses = statuses;
+            this.onSettlementDay = onSettlementDay;
+            this.firstRow = new AtomicIntegerArray(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                firstRow.set(i, UNSEEN);
+            }
+        }
+    }
+
+    private static final class SnapshotBuilder {
+        private long[] ids;
+        private long[] amounts;
+        private byte[] statuses;
+        private boolean[] onSettlementDay;
+        private int size;
+
+        private SnapshotBuilder(int capacity) {
+            ids = new long[capacity];
+            amounts = new long[capacity];
+            statuses = new byte[capacity];
+            onSettlementDay = new boolean[capacity];
+        }
+
+        private void add(long id, long amount, byte status, boolean onDay) {
+            if (size == ids.length) {
+                int grown = size * 2;
+                ids = Arrays.copyOf(ids, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+                statuses = Arrays.copyOf(statuses, grown);
+                onSettlementDay = Arrays.copyOf(onSettlementDay, grown);
+            }
+            ids[size] = id;
+            amounts[size] = amount;
+            statuses[size] = status;
+            onSettlementDay[size] = onDay;
+            size++;
+        }
+
+        // Both hold distinct ids in ascending order and share none
+        private static Snapshot merge(SnapshotBuilder a, SnapshotBuilder b) {
+            SnapshotBuilder merged = new SnapshotBuilder(Math.max(16, a.size + b.size));
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.ids[i] < b.ids[j])) {
+                    merged.add(a.ids[i], a.amounts[i], a.statuses[i], a.onSettlementDay[i]);
+                    i++;
+                } else {
+                    merged.add(b.ids[j], b.amounts[j], b.statuses[j], b.onSettlementDay[j]);
+                    j++;
+                }
+            }
+            return merged.build();
+        }
+
+        private Snapshot build() {
+            return new Snapshot(Arrays.copyOf(ids, size), Arrays.copyOf(amounts, size),
+                    Arrays.copyOf(statuses, size), Arrays.copyOf(onSettlementDay, size));
+        }
+    }
+
+    private static final class MatchTask extends RecursiveTask<List<Issue>> {
+        private final SettlementFile file;
+        private final Snapshot payments;
+        private final int from;
+        private final int to;
+        private final boolean claim;
+
+        private MatchTask(SettlementFile file, Snapshot payments, int from, int to, boolean claim) {
+            this.file = file;
+            this.payments = payments;
+            this.from = from;
+            this.to = to;
+            this.claim = claim;
+        }
+
+        @Override
+        protected List<Issue> compute() {
+            if (to - from > MATCH_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                MatchTask left = new MatchTask(file, payments, from, mid, claim);
+                left.fork();
+                List<Issue> right = new MatchTask(file, payments, mid, to, claim).compute();
+                List<Issue> issues = left.join();
+                issues.addAll(right);
+                return issues;
+            }
+
+            List<Issue> issues = new ArrayList<>();
+            for (int row = from; row < to; row++) {
+                long id = file.paymentIds[row];
+                Long line = (long) file.lineNumbers[row];
+                byte status = file.statuses[row];
+                if (status == SettlementFile.MALFORMED) {
+                    if (claim) {
+                        issues.add(new Issue(id > 0 ? id : null, line, ReconciliationIssueType.MALFORMED_LINE,
+                                "paymentID,amount,status", "unreadable line"));
+                    }
+                    continue;
+                }
+                int at = Arrays.binarySearch(payments.ids, id);
+                if (at < 0) {
+                    if (claim) {
+                        issues.add(new Issue(id, line, ReconciliationIssueType.MISSING_PAYMENT,
+                                "payment " + id, "not in Payment"));
+                    }
+                    continue;
+                }
+                if (claim) {
+                    // rows are in file order, so the lowest row is the lowest line number
+                    payments.firstRow.accumulateAndGet(at, row, Math::min);
+                    continue;
+                }
+                if (payments.firstRow.get(at) != row) {
+                    issues.add(new Issue(id, line, ReconciliationIssueType.DUPLICATE,
+                            "settled once", "settled again"));
+                    continue;
+                }
+                if (file.amounts[row] != payments.amounts[at]) {
+                    issues.add(new Issue(id, line, ReconciliationIssueType.AMOUNT_MISMATCH,
+                            minor(payments.amounts[at]), minor(file.amounts[row])));
+                } else if (status != payments.statuses[at]) {
+                    String expected = payments.statuses[at] >= 0 ? STATUSES[payments.statuses[at]].name() : "none";
+                    issues.add(new Issue(id, line, ReconciliationIssueType.STATUS_MISMATCH,
+                            expected, STATUSES[status].name()));
+                }
+            }
+            return issues;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.backend.service.reservation;
+
+import com.backend.dto.reservaton.ReservationDTO;
+import com.backend.dto.reservaton.ReservationPageDTO;
+import com.backend.entity.enums.ReservationStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Read side for reservations. Every method runs exactly one SQL statement:
+ * the client, package, guide and payment columns it needs are joined into
+ * flat {@link ReservationDTO} rows by a JPQL constructor expression, so no
+ * entity or lazy proxy is ever loaded and serializing a page costs nothing
+ * extra. {@link StatementCounter} checks this on every call: a read that
+ * prepares any other number of statements is logged and counted in
+ * {@code reservations.query.unexpected_statements}.
+ *
+ * Pages are keyset-paginated newest first. Each page continues strictly after
+ * the (createdAt, reservationID) of the previous page's last row, so deep
+ * pages cost the same as the first one. Legacy rows without a createdAt sort
+ * after all others, as SQL Server orders NULL last when descending, and are
+ * paged by reservationID. Only the filters that are set become
+ * predicates, which keeps the plans on the matching
+ * (filter, createdAt, reservationID) indexes of the Reservation table.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class ReservationQueryService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String SELECT_DTO = """
+            SELECT new com.backend.dto.reservaton.ReservationDTO(
+                r.reservationID, c.userID, p.packageID, g.guideID, pay.paymentID,
+                r.status, r.startDate, r.endDate, r.createdAt, r.holdExpiresAt,
+                c.firstName, c.lastName, c.email, c.phone, p.title,
+                g.firstName, g.lastName, g.email)
+            FROM Reservation r
+            JOIN r.client c
+            JOIN r.packages p
+            LEFT JOIN r.guide g
+            LEFT JOIN r.payment pay
+            """;
+
+    private final EntityManager entityManager;
+    private final Counter unexpectedStatements;
+
+    public ReservationQueryService(EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.unexpectedStatements = meterRegistry.counter("reservations.query.unexpected_statements");
+    }
+
+    public List<ReservationDTO> findAll() {
+        return single("findAll", () -> entityManager.createQuery(SELECT_DTO
+                + " ORDER BY r.createdAt DESC, r.reservationID DESC", ReservationDTO.class).getResultList());
+    }
+
+    public List<ReservationDTO> findHistory(Long userId) {
+        return single("findHistory", () -> entityManager.createQuery(SELECT_DTO
+                + " WHERE c.userID = :userId ORDER BY r.createdAt DESC, r.reservationID DESC", ReservationDTO.class)
+                .setParameter("userId", userId)
+                .getResultList());
+    }
+
+    public ReservationDTO findById(Long id) {
+        return single("findById", () -> entityManager.createQuery(SELECT_DTO
+                + " WHERE r.reservationID = :id", ReservationDTO.class)
+                .setParameter("id", id)
+                .getResultList())
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+    }
+
+    public ReservationPageDTO<ReservationDTO> findPage(Long userId, ReservationStatus status, Long packageId,
+            LocalDate from, LocalDate to, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+
+        StringBuilder jpql = new StringBuilder(SELECT_DTO).append(" WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (userId != null) {
+            jpql.append(" AND r.client.userID = :userId");
+            params.put("userId", userId);
+        }
+        if (status != null) {
+            jpql.append(" AND r.status = :status");
+            params.put("status", status);
+        }
+        if (packageId != null) {
+            jpql.append(" AND r.packages.packageID = :packageId");
+            params.put("packageId", packageId);
+        }
+        if (from != null) {
+            jpql.append(" AND r.startDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            jpql.append(" AND r.startDate <= :to");
+            params.put("to", to);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            ReservationCursor after = ReservationCursor.decode(cursor);
+            if (after.createdAt() != null) {
+                jpql.append(" AND (r.createdAt < :cursorCreatedAt"
+                        + " OR (r.createdAt = :cursorCreatedAt AND r.reservationID < :cursorId)"
+                        + " OR r.createdAt IS NULL)");
+                params.put("cursorCreatedAt", after.createdAt());
+            } else {
+                jpql.append(" AND r.createdAt IS NULL AND r.reservationID < :cursorId");
+            }
+            params.put("cursorId", after.reservationId());
+        }
+        jpql.append(" ORDER BY r.createdAt DESC, r.reservationID DESC");
+
+        TypedQuery<ReservationDTO> query = entityManager.createQuery(jpql.toString(), ReservationDTO.class);
+        params.forEach(query::setParameter);
+        // one extra row tells whether another page exists without a COUNT
+        List<ReservationDTO> rows = single("findPage", () -> query.setMaxResults(pageSize + 1).getResultList());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ReservationDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ReservationDTO last = items.get(items.size() - 1);
+            nextCursor = new ReservationCursor(last.getCreatedAt(), last.getReservationID()).encode();
+        }
+        return new ReservationPageDTO<>(List.copyOf(items), pageSize, hasMore, nextCursor);
+    }
+
+    private <T> T single(String read, Supplier<T> query) {
+        StatementCounter.start();
+        try {
+            return query.get();
+        } finally {
+            int statements = StatementCounter.stop();
+            if (statements != 1) {
+                unexpectedStatements.increment();
+                log.warn("Reservation read {} prepared {} SQL statements, expected 1", read, statements);
+            }
+        }
+    }
+}
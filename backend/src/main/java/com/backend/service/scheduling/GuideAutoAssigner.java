@@ -0,0 +1,173 @@
+package com.backend.service.scheduling;
+
+import com.backend.dto.reservaton.GuideAssignmentDTO;
+import com.backend.dto.reservaton.GuideAutoAssignResultDTO;
+import com.backend.entity.Guide;
+import com.backend.entity.enums.GuideStatus;
+import com.backend.repository.GuideRepository;
+import com.backend.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns guides to every CONFIRMED reservation without one in a date window.
+ * Reservations are taken in start-date order and each goes to the least loaded
+ * active guide that is free for its dates (checked against
+ * {@link GuideScheduleIndex} and the assignments made earlier in the same run).
+ * All assignments are written with one JDBC batch in one transaction.
+ */
+@Slf4j
+@Service
+public class GuideAutoAssigner {
+
+    private static final int MAX_WINDOW_DAYS = 366;
+
+    private final ReservationRepository reservationRepository;
+    private final GuideRepository guideRepository;
+    private final GuideScheduleIndex guideSchedule;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int nightlyWindowDays;
+
+    public GuideAutoAssigner(ReservationRepository reservationRepository,
+            GuideRepository guideRepository,
+            GuideScheduleIndex guideSchedule,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.guides.auto-assign-window-days:30}") int nightlyWindowDays) {
+        this.reservationRepository = reservationRepository;
+        this.guideRepository = guideRepository;
+        this.guideSchedule = guideSchedule;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nightlyWindowDays = nightlyWindowDays;
+    }
+
+    public GuideAutoAssignResultDTO assign(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_WINDOW_DAYS + " days");
+        }
+        return transactionTemplate.execute(status -> assignInTransaction(from, to));
+    }
+
+    @Scheduled(cron = "${app.guides.auto-assign-cron:0 0 2 * * *}")
+    public void assignNightly() {
+        LocalDate today = LocalDate.now();
+        try {
+            GuideAutoAssignResultDTO result = assign(today, today.plusDays(nightlyWindowDays));
+            log.info("Nightly guide assignment: {} of {} reservations assigned",
+                    result.assigned(), result.unassignedReservations());
+        } catch (Exception e) {
+            log.error("Nightly guide assignment failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private GuideAutoAssignResultDTO assignInTransaction(LocalDate from, LocalDate to) {
+        List<Object[]> pending = reservationRepository.findUnassignedConfirmed(from, to);
+        List<Guide> guides = guideRepository.findAllByStatus(GuideStatus.ACTIVE);
+
+        // least loaded guide first, ties broken by id so runs are repeatable
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(
+                (a, b) -> a.load != b.load ? Integer.compare(a.load, b.load) : Long.compare(a.guideId, b.guideId));
+        for (Guide guide : guides) {
+            queue.add(new Candidate(guide.getGuideID(), guideSchedule.assignmentCount(guide.getGuideID())));
+        }
+
+        // end day of each guide's latest assignment in this run; intervals arrive by start date,
+        // so a guide is free of this run's work exactly when that day is before the next start
+        Map<Long, LocalDate> lastEnd = new HashMap<>();
+        List<GuideAssignmentDTO> planned = new ArrayList<>();
+        List<Long> leftUnassigned = new ArrayList<>();
+        List<Candidate> skipped = new ArrayList<>();
+
+        for (Object[] row : pending) {
+            Long reservationId = (Long) row[0];
+            LocalDate start = (LocalDate) row[1];
+            LocalDate end = (LocalDate) row[2];
+            if (start == null || end == null || end.isBefore(start)) {
+                leftUnassigned.add(reservationId);
+                continue;
+            }
+
+            Candidate chosen = null;
+            while (!queue.isEmpty()) {
+                Candidate candidate = queue.poll();
+                LocalDate busyUntil = lastEnd.get(candidate.guideId);
+                if ((busyUntil == null || busyUntil.isBefore(start))
+                        && guideSchedule.isFree(candidate.guideId, start, end)) {
+                    chosen = candidate;
+                    break;
+                }
+                skipped.add(candidate);
+            }
+            queue.addAll(skipped);
+            skipped.clear();
+
+            if (chosen == null) {
+                leftUnassigned.add(reservationId);
+                continue;
+            }
+            try {
+                guideSchedule.claim(chosen.guideId, reservationId, start, end);
+            } catch (IllegalStateException e) {
+                // lost a race with a manual assignment; leave it for the next run
+                queue.add(chosen);
+                leftUnassigned.add(reservationId);
+                continue;
+            }
+            lastEnd.put(chosen.guideId, end);
+            queue.add(new Candidate(chosen.guideId, chosen.load + 1));
+            planned.add(new GuideAssignmentDTO(reservationId, chosen.guideId));
+        }
+
+        List<GuideAssignmentDTO> assigned = write(planned, leftUnassigned);
+        return new GuideAutoAssignResultDTO(from, to, pending.size(), guides.size(), assigned.size(),
+                assigned, leftUnassigned);
+    }
+
+    private List<GuideAssignmentDTO> write(List<GuideAssignmentDTO> planned, List<Long> leftUnassigned) {
+        if (planned.isEmpty()) {
+            return planned;
+        }
+        List<Object[]> batch = new ArrayList<>(planned.size());
+        for (GuideAssignmentDTO a : planned) {
+            batch.add(new Object[] { a.guideId(), a.reservationId() });
+        }
+        int[] counts = jdbcTemplate.batchUpdate("""
+                UPDATE Reservation SET guideID = ?
+                WHERE reservationID = ? AND guideID IS NULL AND status = 'CONFIRMED'
+                """, batch);
+
+        List<GuideAssignmentDTO> assigned = new ArrayList<>(planned.size());
+        for (int i = 0; i < planned.size(); i++) {
+            GuideAssignmentDTO a = planned.get(i);
+            if (counts[i] == 0) {
+                // the row changed since it was read, drop the claim we made for it
+                guideSchedule.releaseAfterCommit(a.reservationId());
+                leftUnassigned.add(a.reservationId());
+            } else {
+                assigned.add(a);
+            }
+        }
+        return assigned;
+    }
+
+    private record Candidate(Long guideId, int load) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.backend.service.scheduling;
+
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.event.ReservationStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-guide interval index over the startDate..endDate of reservations the
+ * guide is assigned to. Used to reject double-booking a guide and to find
+ * guides that are free for a date range. Members of one group booking travel
+ * together, so their intervals may overlap each other; the guide stays booked
+ * until the last of them is released.
+ */
+@Slf4j
+@Service
+public class GuideScheduleIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, IntervalTree> schedules = new ConcurrentHashMap<>();
+    private final Map<Long, Assignment> assignments = new ConcurrentHashMap<>();
+    // reservationID to the groupID of its group booking
+    private final Map<Long, Long> groups = new ConcurrentHashMap<>();
+
+    public GuideScheduleIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static boolean blocksGuide(ReservationStatus status) {
+        return status == ReservationStatus.PENDING || status == ReservationStatus.CONFIRMED;
+    }
+
+    public boolean isFree(Long guideId, LocalDate from, LocalDate to) {
+        IntervalTree tree = schedules.get(guideId);
+        if (tree == null) {
+            return true;
+        }
+        synchronized (tree) {
+            return tree.findOverlap(dayOf(from), dayOf(to), id -> false) < 0;
+        }
+    }
+
+    public int assignmentCount(Long guideId) {
+        IntervalTree tree = schedules.get(guideId);
+        if (tree == null) {
+            return 0;
+        }
+        synchronized (tree) {
+            return tree.size();
+        }
+    }
+
+    public void claim(Long guideId, Long reservationId, LocalDate from, LocalDate to) {
+        claim(guideId, reservationId, null, from, to);
+    }
+
+    // Books the guide for the reservation's dates; undone if the transaction rolls back
+    public void claim(Long guideId, Long reservationId, Long groupId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Reservation dates are invalid");
+        }
+        int start = dayOf(from);
+        int end = dayOf(to);
+        Assignment previous = assignments.get(reservationId);
+        if (previous != null && previous.guideId().equals(guideId)
+                && previous.start() == start && previous.end() == end) {
+            return;
+        }
+
+        if (groupId != null) {
+            groups.put(reservationId, groupId);
+        }
+        IntervalTree tree = schedules.computeIfAbsent(guideId, id -> new IntervalTree());
+        synchronized (tree) {
+            long conflict = tree.findOverlap(start, end,
+                    id -> id == reservationId || (groupId != null && groupId.equals(groups.get(id))));
+            if (conflict >= 0) {
+                throw new IllegalStateException("Guide " + guideId + " is already booked on reservation "
+                        + conflict + " between " + from + " and " + to);
+            }
+            tree.insert(reservationId, start, end);
+        }
+        Assignment claimed = new Assignment(guideId, start, end);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        commit(reservationId, previous, claimed);
+                    } else {
+                        removeFromTree(guideId, reservationId, start);
+                        if (previous != null) {
+                            // a re-claim on the same guide replaced the old node
+                            restore(reservationId, previous);
+                        } else {
+                            groups.remove(reservationId);
+                        }
+                    }
+                }
+            });
+        } else {
+            commit(reservationId, previous, claimed);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(ReservationStatusChangedEvent event) {
+        if (!blocksGuide(event.newStatus())) {
+            release(event.reservationId());
+        }
+    }
+
+    // Runs in afterCompletion so it lands after a claim made earlier in the same transaction
+    public void releaseAfterCommit(Long reservationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        release(reservationId);
+                    }
+                }
+            });
+        } else {
+            release(reservationId);
+        }
+    }
+
+    public void release(Long reservationId) {
+        Assignment assignment = assignments.remove(reservationId);
+        groups.remove(reservationId);
+        if (assignment != null) {
+            removeFromTree(assignment.guideId(), reservationId, assignment.start());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            jdbcTemplate.query("""
+                    SELECT reservationID, guideID, groupID, startDate, endDate
+                    FROM Reservation
+                    WHERE guideID IS NOT NULL
+                      AND status IN ('PENDING','CONFIRMED')
+                      AND startDate IS NOT NULL AND endDate >= startDate
+                    """, rs -> {
+                long reservationId = rs.getLong("reservationID");
+                long guideId = rs.getLong("guideID");
+                long groupId = rs.getLong("groupID");
+                if (!rs.wasNull()) {
+                    groups.put(reservationId, groupId);
+                }
+                int start = dayOf(rs.getDate("startDate").toLocalDate());
+                int end = dayOf(rs.getDate("endDate").toLocalDate());
+                IntervalTree tree = schedules.computeIfAbsent(guideId, id -> new IntervalTree());
+                synchronized (tree) {
+                    tree.insert(reservationId, start, end);
+                }
+                assignments.put(reservationId, new Assignment(guideId, start, end));
+            });
+            log.info("Guide schedule index rebuilt with {} assignments", assignments.size());
+        } catch (Exception e) {
+            log.error("Guide schedule index rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void commit(Long reservationId, Assignment previous, Assignment claimed) {
+        if (previous != null
+                && (!previous.guideId().equals(claimed.guideId()) || previous.start() != claimed.start())) {
+            removeFromTree(previous.guideId(), reservationId, previous.start());
+        }
+        assignments.put(reservationId, claimed);
+    }
+
+    private void restore(Long reservationId, Assignment previous) {
+        IntervalTree tree = schedules.computeIfAbsent(previous.guideId(), id -> new IntervalTree());
+        synchronized (tree) {
+            tree.insert(reservationId, previous.start(), previous.end());
+        }
+    }
+
+    private void removeFromTree(Long guideId, Long reservationId, int start) {
+        IntervalTree tree = schedules.get(guideId);
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(reservationId, start);
+            }
+        }
+    }
+
+    private static int dayOf(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    private record Assignment(Long guideId, int start, int end) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.backend.service.scheduling;
+
+import java.util.function.LongPredicate;
+
+/**
+ * AVL tree of closed day intervals keyed by (start, id), augmented with the
+ * maximum end of each subtree so that an overlapping interval can be found in
+ * O(log n), plus one step per ignored overlap. Not thread-safe; callers
+ * synchronize per tree.
+ */
+class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void insert(long id, int start, int end) {
+        root = insert(root, id, start, end);
+    }
+
+    void remove(long id, int start) {
+        root = remove(root, id, start);
+    }
+
+    // id of any interval overlapping [start, end] that ignore does not accept, or -1
+    long findOverlap(int start, int end, LongPredicate ignore) {
+        return findOverlap(root, start, end, ignore);
+    }
+
+    private long findOverlap(Node node, int start, int end, LongPredicate ignore) {
+        if (node == null || node.maxEnd < start) {
+            return -1;
+        }
+        long found = findOverlap(node.left, start, end, ignore);
+        if (found >= 0) {
+            return found;
+        }
+        if (node.start > end) {
+            // everything to the right starts even later
+            return -1;
+        }
+        if (node.end >= start && !ignore.test(node.id)) {
+            return node.id;
+        }
+        return findOverlap(node.right, start, end, ignore);
+    }
+
+    private Node insert(Node node, long id, int start, int end) {
+        if (node == null) {
+            size++;
+            return new Node(id, start, end);
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, id, start, end);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, id, start, end);
+        } else {
+            node.end = end;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long id, int start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(int start, long id, Node node) {
+        int cmp = Integer.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int maxEnd(Node node) {
+        return node == null ? Integer.MIN_VALUE : node.maxEnd;
+    }
+
+    private static final class Node {
+        final long id;
+        final int start;
+        int end;
+        int maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(long id, int start, int end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.backend.service.waitlist;
+
+import com.backend.dto.reservaton.ReservationCreateDTO;
+import com.backend.dto.reservaton.WaitlistEntryDTO;
+import com.backend.entity.Packages;
+import com.backend.entity.Reservation;
+import com.backend.entity.WaitlistEntry;
+import com.backend.entity.enums.ReservationStatus;
+import com.backend.entity.enums.WaitlistStatus;
+import com.backend.event.ReservationStatusChangedEvent;
+import com.backend.repository.ClientRepository;
+import com.backend.repository.PackageRepository;
+import com.backend.repository.ReservationRepository;
+import com.backend.repository.WaitlistRepository;
+import com.backend.service.NotificationService;
+import com.backend.service.inventory.CapacityCalendar;
+import com.backend.service.inventory.SeatInventory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-package waitlists for sold-out packages. Waiters are ordered by tier
+ * (highest first) and then by join order. When a seat-holding reservation is
+ * cancelled, refunded, deleted or its hold expires, {@link #handOff} gives the
+ * seat straight to the first waiter whose dates fit, inside the same
+ * transaction, so the seat never becomes visible to the booking endpoint.
+ * The Waitlist table is the durable log the queues are rebuilt from.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+    // waiters looked at per freed seat before giving up and releasing it
+    private static final int MAX_SCAN = 100;
+
+    private static final Comparator<Waiter> ORDER = Comparator.comparingInt(Waiter::tier).reversed()
+            .thenComparingLong(Waiter::waitlistId);
+
+    private final WaitlistRepository waitlistRepository;
+    private final ReservationRepository reservationRepository;
+    private final ClientRepository clientRepository;
+    private final PackageRepository packageRepository;
+    private final SeatInventory seatInventory;
+    private final CapacityCalendar capacityCalendar;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, TreeSet<Waiter>> queues = new ConcurrentHashMap<>();
+
+    public WaitlistService(WaitlistRepository waitlistRepository,
+            ReservationRepository reservationRepository,
+            ClientRepository clientRepository,
+            PackageRepository packageRepository,
+            SeatInventory seatInventory,
+            CapacityCalendar capacityCalendar,
+            NotificationService notificationService,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate) {
+        this.waitlistRepository = waitlistRepository;
+        this.reservationRepository = reservationRepository;
+        this.clientRepository = clientRepository;
+        this.packageRepository = packageRepository;
+        this.seatInventory = seatInventory;
+        this.capacityCalendar = capacityCalendar;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public WaitlistEntryDTO join(ReservationCreateDTO dto, int tier) {
+        if (dto.getUserId() == null || dto.getPackageId() == null) {
+            throw new IllegalArgumentException("User ID and Package ID are required");
+        }
+        if (!clientRepository.existsById(dto.getUserId())) {
+            throw new RuntimeException("Client not found: " + dto.getUserId());
+        }
+        Packages pkg = packageRepository.findById(dto.getPackageId())
+                .orElseThrow(() -> new RuntimeException("Package not found: " + dto.getPackageId()));
+
+        LocalDate start = dto.getStartDate() != null ? dto.getStartDate() : LocalDate.now().plusDays(7);
+        LocalDate end = dto.getEndDate() != null ? dto.getEndDate() : LocalDate.now().plusDays(14);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        Integer remaining = seatInventory.remaining(pkg.getPackageID());
+        if ((remaining == null || remaining > 0) && capacityCalendar.canBook(pkg.getPackageID(), start, end, 1)) {
+            throw new IllegalStateException("Package " + pkg.getPackageID() + " has seats available, book directly");
+        }
+        TreeSet<Waiter> queue = queueFor(pkg.getPackageID());
+        synchronized (queue) {
+            if (queue.stream().anyMatch(w -> w.userId().equals(dto.getUserId()))) {
+                throw new IllegalStateException("Client " + dto.getUserId() + " is already on this waitlist");
+            }
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUserID(dto.getUserId());
+        entry.setPackageID(pkg.getPackageID());
+        entry.setTier(tier);
+        entry.setStartDate(start);
+        entry.setEndDate(end);
+        WaitlistEntry saved = waitlistRepository.save(entry);
+
+        Waiter waiter = Waiter.of(saved);
+        afterCommit(() -> {
+            synchronized (queue) {
+                queue.add(waiter);
+            }
+        });
+        return toDTO(saved, null);
+    }
+
+    @Transactional
+    public WaitlistEntryDTO leave(Long waitlistId) {
+        WaitlistEntry entry = waitlistRepository.findById(waitlistId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found: " + waitlistId));
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            throw new IllegalStateException("Waitlist entry " + waitlistId + " is already " + entry.getStatus());
+        }
+        // taken out now so a concurrent hand-off cannot pick it; put back if this rolls back
+        Waiter waiter = Waiter.of(entry);
+        TreeSet<Waiter> queue = queueFor(entry.getPackageID());
+        synchronized (queue) {
+            queue.remove(waiter);
+        }
+        onRollback(() -> {
+            synchronized (queue) {
+                queue.add(waiter);
+            }
+        });
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        return toDTO(waitlistRepository.save(entry), null);
+    }
+
+    public List<WaitlistEntryDTO> getWaitlist(Long packageId) {
+        TreeSet<Waiter> queue = queues.get(packageId);
+        if (queue == null) {
+            return List.of();
+        }
+        List<Waiter> snapshot;
+        synchronized (queue) {
+            snapshot = new ArrayList<>(queue);
+        }
+        List<WaitlistEntryDTO> result = new ArrayList<>(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Waiter w = snapshot.get(i);
+            result.add(new WaitlistEntryDTO(w.waitlistId(), w.userId(), packageId, w.tier(), i + 1,
+                    w.startDate(), w.endDate(), WaitlistStatus.WAITING.name(), null, w.createdAt()));
+        }
+        return result;
+    }
+
+    /**
+     * Gives the seat of {@code freed} to the first waiter whose dates fit, as a
+     * CONFIRMED reservation in the caller's transaction. Returns the new
+     * reservation, or null if nobody could take the seat; the caller must then
+     * release it as usual.
+     */
+    public Reservation handOff(Reservation freed) {
+        Packages pkg = freed.getPackages();
+        TreeSet<Waiter> queue = queues.get(pkg.getPackageID());
+        if (queue == null) {
+            return null;
+        }
+        Waiter chosen = null;
+        synchronized (queue) {
+            int scanned = 0;
+            for (Waiter w : queue) {
+                if (scanned++ >= MAX_SCAN) {
+                    break;
+                }
+                if (capacityCalendar.move(pkg, freed.getStartDate(), freed.getEndDate(), w.startDate(), w.endDate())) {
+                    chosen = w;
+                    break;
+                }
+            }
+            if (chosen == null) {
+                return null;
+            }
+            queue.remove(chosen);
+        }
+        Waiter promoted = chosen;
+        onRollback(() -> {
+            synchronized (queue) {
+                queue.add(promoted);
+            }
+        });
+
+        Reservation reservation = new Reservation();
+        reservation.setClient(clientRepository.getReferenceById(promoted.userId()));
+        reservation.setPackages(pkg);
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        reservation.setStartDate(promoted.startDate());
+        reservation.setEndDate(promoted.endDate());
+        reservation.setCreatedAt(LocalDateTime.now());
+        Reservation saved = reservationRepository.save(reservation);
+
+        WaitlistEntry entry = waitlistRepository.findById(promoted.waitlistId())
+                .orElseThrow(() -> new IllegalStateException("Waitlist entry vanished: " + promoted.waitlistId()));
+        entry.setStatus(WaitlistStatus.PROMOTED);
+        entry.setReservationID(saved.getReservationID());
+        entry.setPromotedAt(LocalDateTime.now());
+        waitlistRepository.save(entry);
+
+        eventPublisher.publishEvent(new ReservationStatusChangedEvent(
+                saved.getReservationID(), pkg.getPackageID(), null, ReservationStatus.CONFIRMED));
+        notificationService.sendConfirmation(saved);
+        log.info("Seat of reservation {} handed to waitlist entry {} as reservation {}",
+                freed.getReservationID(), promoted.waitlistId(), saved.getReservationID());
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            jdbcTemplate.query("""
+                    SELECT waitlistID, userID, packageID, tier, startDate, endDate, createdAt
+                    FROM Waitlist
+                    WHERE status = 'WAITING'
+                    """, rs -> {
+                Waiter waiter = new Waiter(
+                        rs.getLong("waitlistID"),
+                        rs.getLong("userID"),
+                        rs.getInt("tier"),
+                        rs.getDate("startDate").toLocalDate(),
+                        rs.getDate("endDate").toLocalDate(),
+                        rs.getTimestamp("createdAt").toLocalDateTime());
+                TreeSet<Waiter> queue = queueFor(rs.getLong("packageID"));
+                synchronized (queue) {
+                    queue.add(waiter);
+                }
+            });
+            log.info("Waitlists rebuilt for {} packages", queues.size());
+        } catch (Exception e) {
+            log.error("Waitlist rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private TreeSet<Waiter> queueFor(Long packageId) {
+        return queues.computeIfAbsent(packageId, id -> new TreeSet<>(ORDER));
+    }
+
+    private WaitlistEntryDTO toDTO(WaitlistEntry entry, Integer position) {
+        return new WaitlistEntryDTO(entry.getWaitlistID(), entry.getUserID(), entry.getPackageID(), entry.getTier(),
+                position, entry.getStartDate(), entry.getEndDate(), entry.getStatus().name(),
+                entry.getReservationID(), entry.getCreatedAt());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private record Waiter(long waitlistId, Long userId, int tier, LocalDate startDate, LocalDate endDate,
+            LocalDateTime createdAt) {
+
+        private static Waiter of(WaitlistEntry entry) {
+            return new Waiter(entry.getWaitlistID(), entry.getUserID(), entry.getTier(), entry.getStartDate(),
+                    entry.getEndDate(), entry.getCreatedAt());
+        }
+    }
+}